@@ -0,0 +1,154 @@
+package lms;
+import java.awt.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+class DisplayPipeline {
+    private static final int CHUNK_LINES = 256;
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private final TextArea area;
+    private final int maxLines;
+    private final String[] pending;
+    private long written;
+    private long taken;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService worker;
+    private final ScheduledExecutorService frames;
+    private volatile long lastFlushNanos;
+    private final int[] shownLengths;
+    private int shownHead;
+    private int shownCount;
+    public DisplayPipeline(TextArea area, int maxLines) {
+        if (maxLines < 1) {
+            throw new IllegalArgumentException("Line cap must be positive.");
+        }
+        this.area = area;
+        this.maxLines = maxLines;
+        this.pending = new String[maxLines];
+        this.shownLengths = new int[maxLines + 1];
+        this.lastFlushNanos = System.nanoTime() - FRAME_NANOS;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "library-display");
+            t.setDaemon(true);
+            return t;
+        });
+        this.frames = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "library-display-frames");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    public void submit(Consumer<LineSink> job) {
+        worker.execute(() -> {
+            ChunkSink sink = new ChunkSink();
+            try {
+                job.accept(sink);
+            } catch (RuntimeException e) {
+                sink.line("Error: " + e.getMessage());
+            }
+            sink.flush();
+        });
+    }
+    public void shutdown() {
+        worker.shutdownNow();
+        frames.shutdownNow();
+    }
+    private void publish(String[] lines, int count) {
+        synchronized (pending) {
+            for (int i = 0; i < count; i++) {
+                pending[(int) (written++ % maxLines)] = lines[i];
+            }
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            long delay = lastFlushNanos + FRAME_NANOS - System.nanoTime();
+            if (delay <= 0) {
+                EventQueue.invokeLater(this::flush);
+            } else {
+                frames.schedule(() -> EventQueue.invokeLater(this::flush), delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+    private void flush() {
+        flushScheduled.set(false);
+        lastFlushNanos = System.nanoTime();
+        String[] batch;
+        long skipped;
+        synchronized (pending) {
+            long from = Math.max(taken, written - maxLines);
+            skipped = from - taken;
+            batch = new String[(int) (written - from)];
+            for (int i = 0; i < batch.length; i++) {
+                int slot = (int) ((from + i) % maxLines);
+                batch[i] = pending[slot];
+                pending[slot] = null;
+            }
+            taken = written;
+        }
+        if (batch.length == 0) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        if (skipped > 0 || batch.length >= maxLines) {
+            shownHead = 0;
+            shownCount = 0;
+            int first = 0;
+            if (skipped > 0) {
+                first = 1;
+                show(text, "[" + (skipped + 1) + " earlier lines not shown]");
+            }
+            for (int i = first; i < batch.length; i++) {
+                show(text, batch[i]);
+            }
+            area.setText(text.toString());
+            return;
+        }
+        int dropped = 0;
+        for (String line : batch) {
+            dropped += show(text, line);
+        }
+        area.append(text.toString());
+        if (dropped > 0) {
+            area.replaceRange("", 0, dropped);
+        }
+    }
+    private int show(StringBuilder text, String line) {
+        text.append(line).append('\n');
+        shownLengths[(shownHead + shownCount) % shownLengths.length] = line.length() + 1;
+        if (++shownCount <= maxLines) {
+            return 0;
+        }
+        int dropped = shownLengths[shownHead];
+        shownHead = (shownHead + 1) % shownLengths.length;
+        shownCount--;
+        return dropped;
+    }
+    private class ChunkSink implements LineSink {
+        private final String[] chunk = new String[CHUNK_LINES];
+        private int lines;
+        public void line(String text) {
+            String value = String.valueOf(text);
+            int start = 0;
+            int end;
+            while ((end = value.indexOf('\n', start)) >= 0) {
+                add(value.substring(start, end));
+                start = end + 1;
+            }
+            add(start == 0 ? value : value.substring(start));
+        }
+        private void add(String text) {
+            chunk[lines++] = text;
+            if (lines == CHUNK_LINES) {
+                flush();
+            }
+        }
+        void flush() {
+            if (lines == 0) {
+                return;
+            }
+            publish(chunk, lines);
+            Arrays.fill(chunk, 0, lines, null);
+            lines = 0;
+        }
+    }
+}
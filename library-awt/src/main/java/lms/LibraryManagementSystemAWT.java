@@ -0,0 +1,580 @@
+package lms;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+public class LibraryManagementSystemAWT extends Frame implements ActionListener {
+    private static final long serialVersionUID = 1L;
+    private final Library library;
+    private TextField searchBookField;
+    private TextField searchMemberField;
+    private TextField idField;
+    private TextField titleField;
+    private TextField authorField;
+    private TextField deleteField;
+    private TextField memberIdField;
+    private TextField memberNameField;
+    private TextField borrowMemberIdField;
+    private TextField borrowBookIdField;
+    private TextField returnMemberIdField;
+    private TextField returnBookIdField;
+    private TextField removeMemberField;
+    private TextField importFileField;
+    private TextField exportFileField;
+    private Checkbox exportSortedBox;
+    private static final int DISPLAY_LINE_CAP = 5000;
+    private TextArea displayArea;
+    private DisplayPipeline display;
+    private TextField searchTextField;
+    private final SearchIndex searchIndex;
+    private final LibraryIndexes indexes;
+    private final CompletableFuture<Void> indexing;
+    private static final int TOP_K = 10;
+    private TextField indexAuthorField;
+    private final LibraryExporter exporter = new LibraryExporter(1 << 20);
+    private volatile LibraryStore store;
+    public LibraryManagementSystemAWT(Library library, Future<LibraryStore> loading, SearchIndex searchIndex,
+            LibraryIndexes indexes, CompletableFuture<Void> indexing, StartupTimings timings) {
+        super("Library Management System");
+        this.library = library;
+        this.searchIndex = searchIndex;
+        this.indexes = indexes;
+        this.indexing = indexing;
+       
+        GridBagLayout layout = new GridBagLayout();
+        setLayout(layout);
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+
+        setSize(1000, 700);       
+       
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+       
+        add(new Label("Search Book by ID:"), gbc);
+        gbc.gridx++;
+        searchBookField = new TextField(10);
+        add(searchBookField, gbc);
+        gbc.gridx++;
+        Button searchBookButton = new Button("Search Book");
+        add(searchBookButton, gbc);
+     
+        gbc.gridx = 0;
+        gbc.gridy++;
+      
+        add(new Label("Search Member by ID:"), gbc);
+        gbc.gridx++;
+        searchMemberField = new TextField(10);
+        add(searchMemberField, gbc);
+        gbc.gridx++;
+        Button searchMemberButton = new Button("Search Member");
+        add(searchMemberButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+
+        add(new Label("Search Title/Author:"), gbc);
+        gbc.gridx++;
+        searchTextField = new TextField(20);
+        add(searchTextField, gbc);
+        gbc.gridx++;
+        Button searchTextButton = new Button("Search Text");
+        add(searchTextButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+     
+        add(new Label("Book ID:"), gbc);
+        gbc.gridx++;
+        idField = new TextField(10);
+        add(idField, gbc);
+        gbc.gridx++;
+        add(new Label("Title:"), gbc);
+        gbc.gridx++;
+        titleField = new TextField(10);
+        add(titleField, gbc);
+        gbc.gridx++;
+        add(new Label("Author:"), gbc);
+        gbc.gridx++;
+        authorField = new TextField(10);
+        add(authorField, gbc);
+        gbc.gridx++;
+        Button addBookButton = new Button("Add Book");
+        add(addBookButton, gbc);
+    
+        gbc.gridx = 0;
+        gbc.gridy++;
+       
+        add(new Label("Delete Book by ID:"), gbc);
+        gbc.gridx++;
+        deleteField = new TextField(10);
+        add(deleteField, gbc);
+        gbc.gridx++;
+        Button deleteButton = new Button("Delete Book");
+        add(deleteButton, gbc);
+        
+        gbc.gridx = 0;
+        gbc.gridy++;
+       
+        add(new Label("Member ID:"), gbc);
+        gbc.gridx++;
+        memberIdField = new TextField(10);
+        add(memberIdField, gbc);
+        gbc.gridx++;
+        add(new Label("Member Name:"), gbc);
+        gbc.gridx++;
+        memberNameField = new TextField(10);
+        add(memberNameField, gbc);
+        gbc.gridx++;
+        Button addMemberButton = new Button("Add Member");
+        add(addMemberButton, gbc);
+       
+        gbc.gridx = 0;
+        gbc.gridy++;
+   
+        add(new Label("Remove Member by ID:"), gbc);
+        gbc.gridx++;
+        removeMemberField = new TextField(10);
+        add(removeMemberField, gbc);
+        gbc.gridx++;
+        Button removeMemberButton = new Button("Remove Member");
+        add(removeMemberButton, gbc);
+   
+        gbc.gridx = 0;
+        gbc.gridy++;
+       
+        add(new Label("Borrow Member ID:"), gbc);
+        gbc.gridx++;
+        borrowMemberIdField = new TextField(10);
+        add(borrowMemberIdField, gbc);
+        gbc.gridx++;
+        add(new Label("Borrow Book ID:"), gbc);
+        gbc.gridx++;
+        borrowBookIdField = new TextField(10);
+        add(borrowBookIdField, gbc);
+        gbc.gridx++;
+        Button borrowBookButton = new Button("Borrow Book");
+        add(borrowBookButton, gbc);
+       
+        gbc.gridx = 0;
+        gbc.gridy++;
+     
+        add(new Label("Return Member ID:"), gbc);
+        gbc.gridx++;
+        returnMemberIdField = new TextField(10);
+        add(returnMemberIdField, gbc);
+        gbc.gridx++;
+        add(new Label("Return Book ID:"), gbc);
+        gbc.gridx++;
+        returnBookIdField = new TextField(10);
+        add(returnBookIdField, gbc);
+        gbc.gridx++;
+        Button returnBookButton = new Button("Return Book");
+        add(returnBookButton, gbc);
+    
+        gbc.gridx = 0;
+        gbc.gridy++;
+        
+        Button displayAddedBookIdsButton = new Button("Display Added Book IDs");
+        Button displayAddedMemberIdsButton = new Button("Display Added Member IDs");
+        Button displayRemovedBookIdsButton = new Button("Display Removed Book IDs");
+        Button displayRemovedMemberIdsButton = new Button("Display Removed Member IDs");
+        add(displayAddedBookIdsButton, gbc);
+        gbc.gridx++;
+        add(displayAddedMemberIdsButton, gbc);
+        gbc.gridx++;
+        add(displayRemovedBookIdsButton, gbc);
+        gbc.gridx++;
+        add(displayRemovedMemberIdsButton, gbc);
+    
+        gbc.gridx = 0;
+        gbc.gridy++;
+       
+        Button sortBooksByIdButton = new Button("Sort Books by ID");
+        Button sortMembersByIdButton = new Button("Sort Members by ID");
+        Button sortBorrowRecordsButton = new Button("Sort Borrow Records");
+        Button sortReturnRecordsButton = new Button("Sort Return Records");
+        add(sortBooksByIdButton, gbc);
+        gbc.gridx++;
+        add(sortMembersByIdButton, gbc);
+        gbc.gridx++;
+        add(sortBorrowRecordsButton, gbc);
+        gbc.gridx++;
+        add(sortReturnRecordsButton, gbc);
+        gbc.gridx = 0;
+        gbc.gridy++;
+        Button displaySortedBooksButton = new Button("Display Sorted Books");
+        Button displaySortedMembersButton = new Button("Display Sorted Members");
+        Button displayBorrowRecordsButton = new Button("Display Sorted Borrow Records");
+        Button displayReturnRecordsButton = new Button("Display Sorted Return Records");
+        add(displaySortedBooksButton, gbc);
+        gbc.gridx++;
+        add(displaySortedMembersButton, gbc);
+        gbc.gridx++;
+        add(displayBorrowRecordsButton, gbc);
+        gbc.gridx++;
+        add(displayReturnRecordsButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+
+        add(new Label("Import File (CSV/NDJSON):"), gbc);
+        gbc.gridx++;
+        importFileField = new TextField(20);
+        add(importFileField, gbc);
+        gbc.gridx++;
+        Button importBooksButton = new Button("Import Books");
+        add(importBooksButton, gbc);
+        gbc.gridx++;
+        Button importMembersButton = new Button("Import Members");
+        add(importMembersButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+
+        add(new Label("Export File (CSV/NDJSON/BIN):"), gbc);
+        gbc.gridx++;
+        exportFileField = new TextField(20);
+        add(exportFileField, gbc);
+        gbc.gridx++;
+        Button exportBooksButton = new Button("Export Books");
+        add(exportBooksButton, gbc);
+        gbc.gridx++;
+        Button exportMembersButton = new Button("Export Members");
+        add(exportMembersButton, gbc);
+        gbc.gridx++;
+        Button exportBorrowRecordsButton = new Button("Export Borrow Records");
+        add(exportBorrowRecordsButton, gbc);
+        gbc.gridx++;
+        exportSortedBox = new Checkbox("Sorted by ID", true);
+        add(exportSortedBox, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+
+        add(new Label("Author:"), gbc);
+        gbc.gridx++;
+        indexAuthorField = new TextField(20);
+        add(indexAuthorField, gbc);
+        gbc.gridx++;
+        Button booksByAuthorButton = new Button("Books by Author");
+        add(booksByAuthorButton, gbc);
+        gbc.gridx++;
+        Button topAuthorsButton = new Button("Top Authors");
+        add(topAuthorsButton, gbc);
+        gbc.gridx++;
+        Button topBorrowersButton = new Button("Top Borrowers");
+        add(topBorrowersButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+
+        Button showMetricsButton = new Button("Show Metrics");
+        add(showMetricsButton, gbc);
+        gbc.gridx++;
+        Button dumpMetricsButton = new Button("Dump Metrics");
+        add(dumpMetricsButton, gbc);
+        gbc.gridx++;
+        Button showOverdueButton = new Button("Show Overdue Loans");
+        add(showOverdueButton, gbc);
+        gbc.gridx++;
+        Button displayTitlesButton = new Button("Display Titles");
+        add(displayTitlesButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+     
+        displayArea = new TextArea(10, 50);
+        gbc.gridwidth = 7;
+        add(displayArea, gbc);
+        display = new DisplayPipeline(displayArea, DISPLAY_LINE_CAP);
+
+        display.submit(out -> {
+            try {
+                store = loading.get();
+                store.setCheckpointFailureHandler(e -> display.submit(failed -> failed.line("Checkpoint failed: " + e.getMessage())));
+            } catch (ExecutionException e) {
+                out.line("Persistence unavailable: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            timings.writeTo(out);
+        });
+    
+        searchBookButton.addActionListener(this);
+        searchMemberButton.addActionListener(this);
+        searchTextButton.addActionListener(this);
+        addBookButton.addActionListener(this);
+        deleteButton.addActionListener(this);
+        addMemberButton.addActionListener(this);
+        borrowBookButton.addActionListener(this);
+        returnBookButton.addActionListener(this);
+        removeMemberButton.addActionListener(this);
+        displayAddedBookIdsButton.addActionListener(this);
+        displayAddedMemberIdsButton.addActionListener(this);
+        displayRemovedBookIdsButton.addActionListener(this);
+        displayRemovedMemberIdsButton.addActionListener(this);
+        sortBooksByIdButton.addActionListener(this);
+        sortMembersByIdButton.addActionListener(this);
+        displaySortedBooksButton.addActionListener(this);
+        displaySortedMembersButton.addActionListener(this);
+        sortBorrowRecordsButton.addActionListener(this);
+        sortReturnRecordsButton.addActionListener(this);
+        displayBorrowRecordsButton.addActionListener(this);
+        displayReturnRecordsButton.addActionListener(this);
+        importBooksButton.addActionListener(this);
+        importMembersButton.addActionListener(this);
+        exportBooksButton.addActionListener(this);
+        exportMembersButton.addActionListener(this);
+        exportBorrowRecordsButton.addActionListener(this);
+        booksByAuthorButton.addActionListener(this);
+        topAuthorsButton.addActionListener(this);
+        topBorrowersButton.addActionListener(this);
+        showMetricsButton.addActionListener(this);
+        dumpMetricsButton.addActionListener(this);
+        showOverdueButton.addActionListener(this);
+        displayTitlesButton.addActionListener(this);
+        addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                display.shutdown();
+                if (store != null) {
+                    try {
+                        store.close();
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+                dispose();
+            }
+        });
+        setVisible(true);
+        timings.mark("frame visible");
+    }
+    private void awaitIndexes(LineSink out) {
+        if (!indexing.isDone()) {
+            out.line("Waiting for search and author indexes...");
+        }
+        indexing.join();
+    }
+    public void actionPerformed(ActionEvent e) {
+        String command = e.getActionCommand();
+        if (command.equals("Search Book")) {
+            int id = Integer.parseInt(searchBookField.getText());
+            display.submit(out -> {
+                Book book = library.findBookById(id);
+                if (book != null) {
+                    out.line("Book found: ID = " + book.getId() + ", Title = " + book.getTitle() + ", Author = " + book.getAuthor());
+                } else {
+                    out.line("Book not found.");
+                }
+            });
+        } else if (command.equals("Search Member")) {
+            int id = Integer.parseInt(searchMemberField.getText());
+            display.submit(out -> {
+                Member member = library.findMemberById(id);
+                if (member != null) {
+                    out.line("Member found: ID = " + member.getMemberId() + ", Name = " + member.getMemberName());
+                } else {
+                    out.line("Member not found.");
+                }
+            });
+        } else if (command.equals("Search Text")) {
+            String query = searchTextField.getText();
+            display.submit(out -> {
+                awaitIndexes(out);
+                long start = System.nanoTime();
+                int[] ids = searchIndex.search(query, 50);
+                long micros = (System.nanoTime() - start) / 1000;
+                out.line(ids.length + " matches for \"" + query + "\" in " + micros + " us:");
+                for (int id : ids) {
+                    Book book = library.findBookById(id);
+                    if (book != null) {
+                        out.line(book.toString());
+                    }
+                }
+            });
+        } else if (command.equals("Add Book")) {
+            int id = Integer.parseInt(idField.getText());
+            String title = titleField.getText();
+            String author = authorField.getText();
+            display.submit(out -> {
+                Book book = new Book(id, title, author);
+                library.addBook(book);
+                out.line("Book added: ID = " + id + ", Title = " + title + ", Author = " + author);
+            });
+        } else if (command.equals("Delete Book")) {
+            int id = Integer.parseInt(deleteField.getText());
+            display.submit(out -> {
+                if (library.deleteBookById(id)) {
+                    out.line("Book with ID " + id + " deleted.");
+                } else {
+                    out.line("Book with ID " + id + " not found.");
+                }
+            });
+        } else if (command.equals("Add Member")) {
+            int memberId = Integer.parseInt(memberIdField.getText());
+            String memberName = memberNameField.getText();
+            display.submit(out -> {
+                Member member = new Member(memberId, memberName);
+                library.addMember(member);
+                out.line("Member added: ID = " + memberId + ", Name = " + memberName);
+            });
+        } else if (command.equals("Borrow Book")) {
+            int memberId = Integer.parseInt(borrowMemberIdField.getText());
+            int bookId = Integer.parseInt(borrowBookIdField.getText());
+            display.submit(out -> {
+                if (library.borrowBook(memberId, bookId)) {
+                    out.line("Book with ID " + bookId + " borrowed by Member with ID " + memberId);
+                } else {
+                    out.line("Borrow operation failed.");
+                }
+            });
+        } else if (command.equals("Return Book")) {
+            int memberId = Integer.parseInt(returnMemberIdField.getText());
+            int bookId = Integer.parseInt(returnBookIdField.getText());
+            display.submit(out -> {
+                if (library.returnBook(memberId, bookId)) {
+                    out.line("Book with ID " + bookId + " returned by Member with ID " + memberId);
+                } else {
+                    out.line("Return operation failed.");
+                }
+            });
+        } else if (command.equals("Remove Member")) {
+            int memberId = Integer.parseInt(removeMemberField.getText());
+            display.submit(out -> {
+                if (library.removeMemberById(memberId)) {
+                    out.line("Member with ID " + memberId + " removed.");
+                } else {
+                    out.line("Member with ID " + memberId + " not found.");
+                }
+            });
+        } else if (command.equals("Display Added Book IDs")) {
+            display.submit(out -> out.line(library.displayAddedBookIds().stripTrailing()));
+        } else if (command.equals("Display Added Member IDs")) {
+            display.submit(out -> out.line(library.displayAddedMemberIds().stripTrailing()));
+        } else if (command.equals("Display Removed Book IDs")) {
+            display.submit(out -> out.line(library.displayRemovedBookIds().stripTrailing()));
+        } else if (command.equals("Display Removed Member IDs")) {
+            display.submit(out -> out.line(library.displayRemovedMemberIds().stripTrailing()));
+        } else if (command.equals("Sort Books by ID")) {
+            display.submit(out -> {
+                library.sortBooksById();
+                out.line("Books sorted by ID.");
+            });
+        } else if (command.equals("Sort Members by ID")) {
+            display.submit(out -> {
+                library.sortMembersById();
+                out.line("Members sorted by ID.");
+            });
+        } else if (command.equals("Display Sorted Books")) {
+            display.submit(library::streamSortedBooks);
+        } else if (command.equals("Display Sorted Members")) {
+            display.submit(library::streamSortedMembers);
+        }
+    String ActionCommand = e.getActionCommand();
+    if (command.equals("Sort Borrow Records")) {
+        display.submit(out -> out.line("Borrow records sorted by Book ID."));
+    } else if (command.equals("Display Sorted Borrow Records")) {
+        display.submit(library::streamSortedBorrowRecords);
+    } else if (command.equals("Sort Return Records")) {
+        display.submit(out -> out.line("Return records sorted by Member ID."));
+    } else if (command.equals("Display Sorted Return Records")) {
+        display.submit(library::streamSortedReturnRecords);
+    } else if (command.equals("Import Books") || command.equals("Import Members")) {
+        Path file = Paths.get(importFileField.getText().trim());
+        boolean importBooks = command.equals("Import Books");
+        display.submit(out -> {
+            try {
+                BulkImporter importer = new BulkImporter(library);
+                out.line((importBooks ? importer.importBooks(file) : importer.importMembers(file)).toString());
+            } catch (IOException ex) {
+                out.line("Import failed: " + ex.getMessage());
+            }
+        });
+    } else if (command.equals("Export Books") || command.equals("Export Members") || command.equals("Export Borrow Records")) {
+        Path file = Paths.get(exportFileField.getText().trim());
+        boolean sorted = exportSortedBox.getState();
+        display.submit(out -> {
+            try {
+                LibrarySnapshot snapshot = library.snapshot();
+                long begin = System.nanoTime();
+                long count;
+                if (command.equals("Export Books")) {
+                    count = exporter.exportBooks(snapshot, file, sorted);
+                } else if (command.equals("Export Members")) {
+                    count = exporter.exportMembers(snapshot, file, sorted);
+                } else {
+                    count = exporter.exportBorrowRecords(snapshot, file);
+                }
+                out.line("Exported " + count + " records to " + file.toAbsolutePath() + " in " + (System.nanoTime() - begin) / 1000000 + " ms");
+            } catch (IOException | IllegalArgumentException ex) {
+                out.line("Export failed: " + ex.getMessage());
+            }
+        });
+    } else if (command.equals("Books by Author")) {
+        String author = indexAuthorField.getText().trim();
+        display.submit(out -> {
+            awaitIndexes(out);
+            indexes.streamBooksByAuthor(library, author, out);
+        });
+    } else if (command.equals("Top Authors")) {
+        display.submit(out -> {
+            awaitIndexes(out);
+            indexes.streamTopAuthors(TOP_K, out);
+        });
+    } else if (command.equals("Top Borrowers")) {
+        display.submit(out -> {
+            awaitIndexes(out);
+            indexes.streamTopBorrowers(TOP_K, out);
+        });
+    } else if (command.equals("Show Metrics")) {
+        display.submit(out -> library.metricsSnapshot().writeTo(out));
+    } else if (command.equals("Show Overdue Loans")) {
+        long now = System.currentTimeMillis();
+        display.submit(out -> library.streamOverdueLoans(now, out));
+    } else if (command.equals("Display Titles")) {
+        display.submit(library::streamTitles);
+    } else if (command.equals("Dump Metrics")) {
+        display.submit(out -> {
+            Path file = Paths.get("library-data", "metrics.txt");
+            try {
+                Files.createDirectories(file.getParent());
+                library.metricsSnapshot().export(file);
+                out.line("Metrics written to " + file.toAbsolutePath());
+            } catch (IOException ex) {
+                out.line("Metrics export failed: " + ex.getMessage());
+            }
+        });
+    }
+
+    }
+    public static void main(String[] args) {
+        StartupTimings timings = new StartupTimings();
+        Library library = new Library();
+        FutureTask<LibraryStore> loading = new FutureTask<>(() -> {
+            library.spillHistoryTo(Paths.get("library-data", "history"), 16L * 1024 * 1024);
+            LibraryStore store = new LibraryStore(Paths.get("library-data"));
+            String report = store.attach(library, 10 * 60 * 1000);
+            timings.mark("library usable (" + report + ")");
+            return store;
+        });
+        SearchIndex searchIndex = new SearchIndex();
+        LibraryIndexes indexes = new LibraryIndexes(library.getDictionary());
+        CompletableFuture<Void> indexing = new CompletableFuture<>();
+        Thread loader = new Thread(() -> {
+            loading.run();
+            try {
+                library.attachListener(searchIndex);
+                library.attachListener(indexes);
+                timings.mark("indexes built");
+                indexing.complete(null);
+            } catch (RuntimeException e) {
+                indexing.completeExceptionally(e);
+            }
+        }, "library-startup");
+        loader.setDaemon(true);
+        loader.start();
+        EventQueue.invokeLater(() -> new LibraryManagementSystemAWT(library, loading, searchIndex, indexes, indexing, timings));
+    }
+}
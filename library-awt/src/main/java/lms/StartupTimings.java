@@ -0,0 +1,12 @@
+package lms;
+import java.util.*;
+class StartupTimings {
+    private final long mainNanos = System.nanoTime();
+    private final ArrayList<String> phases = new ArrayList<>();
+    synchronized void mark(String phase) {
+        phases.add(phase + " at " + (System.nanoTime() - mainNanos) / 1000000 + " ms");
+    }
+    synchronized void writeTo(LineSink sink) {
+        sink.line("Startup (since main): " + String.join(", ", phases));
+    }
+}
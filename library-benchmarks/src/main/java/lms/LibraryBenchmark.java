@@ -0,0 +1,236 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LibraryBenchmark {
+    private static final int PROBE_LIMIT = 1000000;
+    private static final int LOAN_LIMIT = 100000;
+    private static final int DELETE_LIMIT = 10000;
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+    @Param({"sorted", "random"})
+    public String order;
+    private int[] ids;
+    private Library catalog;
+    private Library lent;
+    private Library roster;
+    private ShardedLibrary sharded;
+    private int memberCount;
+    private int[] findProbes;
+    private int[] loanProbes;
+    private int[] deleteProbes;
+    private int findCursor;
+    private int loanCursor;
+    @State(Scope.Benchmark)
+    public static class Empty {
+        Library library;
+        Book[] books;
+        Member[] members;
+        @Setup(Level.Invocation)
+        public void setUp(LibraryBenchmark benchmark) {
+            library = new Library();
+            books = benchmark.books();
+            members = benchmark.members(benchmark.size);
+        }
+    }
+    @State(Scope.Benchmark)
+    public static class Loaded {
+        Library library;
+        @Setup(Level.Invocation)
+        public void setUp(LibraryBenchmark benchmark) {
+            library = new Library();
+            library.addBooks(benchmark.books(), benchmark.size, id -> { });
+        }
+    }
+    @Setup(Level.Trial)
+    public void setUp() {
+        ids = ids(size, order);
+        memberCount = Math.max(1, size / 10);
+        catalog = new Library();
+        catalog.addBooks(books(), size, id -> { });
+        catalog.addMembers(members(memberCount), memberCount, id -> { });
+        lent = new Library();
+        lent.addBooks(books(), size, id -> { });
+        lent.addMembers(members(memberCount), memberCount, id -> { });
+        for (int i = 0; i < size; i++) {
+            lent.borrowBook(ids[i % memberCount], ids[i]);
+        }
+        roster = new Library();
+        roster.addMembers(members(size), size, id -> { });
+        sharded = new ShardedLibrary(Runtime.getRuntime().availableProcessors());
+        ArrayList<CompletableFuture<Void>> added = new ArrayList<>(size + memberCount);
+        for (Book book : books()) {
+            added.add(sharded.addBook(book));
+        }
+        for (Member member : members(memberCount)) {
+            added.add(sharded.addMember(member));
+        }
+        CompletableFuture.allOf(added.toArray(new CompletableFuture<?>[0])).join();
+        findProbes = probes(ids, Math.min(size, PROBE_LIMIT), 7);
+        loanProbes = probes(ids, Math.min(size, LOAN_LIMIT), 11);
+        deleteProbes = probes(ids, Math.min(size, DELETE_LIMIT), 13);
+    }
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sharded.close();
+    }
+    @Benchmark
+    public Book findBookById() {
+        int i = findCursor;
+        findCursor = i + 1 == findProbes.length ? 0 : i + 1;
+        return catalog.findBookById(findProbes[i]);
+    }
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean borrowReturn() {
+        int i = loanCursor;
+        loanCursor = i + 1 == loanProbes.length ? 0 : i + 1;
+        int memberId = ids[i % memberCount];
+        boolean borrowed = catalog.borrowBook(memberId, loanProbes[i]);
+        return catalog.returnBook(memberId, loanProbes[i]) && borrowed;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public int borrowReturnBatch() {
+        int returned = 0;
+        for (int i = 0; i < loanProbes.length; i++) {
+            catalog.borrowBook(ids[i % memberCount], loanProbes[i]);
+        }
+        for (int i = 0; i < loanProbes.length; i++) {
+            returned += catalog.returnBook(ids[i % memberCount], loanProbes[i]) ? 1 : 0;
+        }
+        return returned;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public int shardedBorrowReturn() {
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[loanProbes.length];
+        for (int i = 0; i < loanProbes.length; i++) {
+            pending[i] = sharded.borrowBook(ids[i % memberCount], loanProbes[i]);
+        }
+        CompletableFuture.allOf(pending).join();
+        for (int i = 0; i < loanProbes.length; i++) {
+            pending[i] = sharded.returnBook(ids[i % memberCount], loanProbes[i]);
+        }
+        CompletableFuture.allOf(pending).join();
+        return pending.length;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Library addBook(Empty empty) {
+        for (Book book : empty.books) {
+            empty.library.addBook(book);
+        }
+        return empty.library;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Library addMember(Empty empty) {
+        for (Member member : empty.members) {
+            empty.library.addMember(member);
+        }
+        return empty.library;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Library deleteBookById(Loaded loaded) {
+        for (int id : deleteProbes) {
+            loaded.library.deleteBookById(id);
+        }
+        return loaded.library;
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public Library sortBooksById(Loaded loaded) {
+        loaded.library.sortBooksById();
+        return loaded.library;
+    }
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ArrayList<Map.Entry<Integer, Integer>> sortBorrowRecords() {
+        return lent.sortBorrowRecords();
+    }
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String displaySortedBooks() {
+        return catalog.displaySortedBooks();
+    }
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String displaySortedMembers() {
+        return roster.displaySortedMembers();
+    }
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String displaySortedBorrowRecords() {
+        return lent.displaySortedBorrowRecords();
+    }
+    Book[] books() {
+        Book[] books = new Book[size];
+        for (int i = 0; i < size; i++) {
+            books[i] = new Book(ids[i], "Title " + ids[i], "Author " + (ids[i] % 1000));
+        }
+        return books;
+    }
+    Member[] members(int count) {
+        Member[] members = new Member[count];
+        for (int i = 0; i < count; i++) {
+            members[i] = new Member(ids[i], "Member " + ids[i]);
+        }
+        return members;
+    }
+    private static int[] ids(int size, String order) {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        if (order.equals("random")) {
+            Random random = new Random(42);
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = ids[i];
+                ids[i] = ids[j];
+                ids[j] = t;
+            }
+        } else if (!order.equals("sorted")) {
+            throw new IllegalArgumentException("Unknown order: " + order);
+        }
+        return ids;
+    }
+    private static int[] probes(int[] ids, int count, long seed) {
+        Random random = new Random(seed);
+        int[] pool = ids.clone();
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(pool.length - i);
+            int t = pool[i];
+            pool[i] = pool[j];
+            pool[j] = t;
+        }
+        return Arrays.copyOf(pool, count);
+    }
+}
@@ -0,0 +1,93 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SortBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+    @Param({"sorted", "reversed", "random"})
+    public String input;
+    @Param({"legacy", "introsort", "parallel"})
+    public String engine;
+    private Book[] data;
+    private IdSorter sorter;
+    private Library library;
+    private ArrayList<Book> legacy;
+    @Setup(Level.Trial)
+    public void generate() {
+        switch (engine) {
+            case "legacy":
+                break;
+            case "introsort":
+                sorter = IntroSorter.INSTANCE;
+                break;
+            case "parallel":
+                sorter = ParallelIdSorter.COMMON;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+        data = new Book[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            int id;
+            if (input.equals("sorted")) {
+                id = i;
+            } else if (input.equals("reversed")) {
+                id = size - i;
+            } else if (input.equals("random")) {
+                id = random.nextInt();
+            } else {
+                throw new IllegalArgumentException("Unknown input: " + input);
+            }
+            data[i] = new Book(id, "Title " + i, "Author " + (i % 100));
+        }
+        if (engine.equals("legacy")) {
+            try {
+                legacyQuickSort(new ArrayList<>(Arrays.asList(data)), 0, size - 1);
+            } catch (StackOverflowError e) {
+                throw new IllegalStateException("Legacy quicksort overflows the stack on " + input + " input of " + size + " books.");
+            }
+        }
+    }
+    @Setup(Level.Invocation)
+    public void load() {
+        if (engine.equals("legacy")) {
+            legacy = new ArrayList<>(Arrays.asList(data));
+            return;
+        }
+        library = new Library();
+        library.addBooks(data, data.length, id -> { });
+        library.setSorter(sorter);
+    }
+    @Benchmark
+    public Object sortBooksById() {
+        if (legacy != null) {
+            legacyQuickSort(legacy, 0, legacy.size() - 1);
+            return legacy;
+        }
+        library.sortBooksById();
+        return library;
+    }
+    private static void legacyQuickSort(ArrayList<Book> books, int low, int high) {
+        if (low < high) {
+            Book pivot = books.get(high);
+            int i = low - 1;
+            for (int j = low; j < high; j++) {
+                if (books.get(j).getId() <= pivot.getId()) {
+                    i++;
+                    Collections.swap(books, i, j);
+                }
+            }
+            Collections.swap(books, i + 1, high);
+            legacyQuickSort(books, low, i);
+            legacyQuickSort(books, i + 2, high);
+        }
+    }
+}
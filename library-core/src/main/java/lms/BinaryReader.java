@@ -0,0 +1,73 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+class BinaryReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long position;
+    public BinaryReader(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.flip();
+    }
+    public long position() {
+        return position;
+    }
+    public boolean available(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) <= 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+    private void require(int bytes) throws IOException {
+        if (!available(bytes)) {
+            throw new EOFException();
+        }
+    }
+    public int getByte() throws IOException {
+        require(1);
+        position += 1;
+        return buffer.get();
+    }
+    public int getInt() throws IOException {
+        require(4);
+        position += 4;
+        return buffer.getInt();
+    }
+    public long getLong() throws IOException {
+        require(8);
+        position += 8;
+        return buffer.getLong();
+    }
+    public String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        if (length > channel.size() - position) {
+            throw new EOFException("String length " + length + " runs past the end of the file");
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            require(1);
+            int n = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        position += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,60 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+class BinaryWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    public BinaryWriter(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+    public void putByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+    public void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+    public void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+    public void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    public void flush(boolean force) throws IOException {
+        drain();
+        if (force) {
+            channel.force(false);
+        }
+    }
+    public void close() throws IOException {
+        flush(true);
+        channel.close();
+    }
+}
@@ -0,0 +1,96 @@
+package lms;
+import java.util.*;
+class Book {
+    private static final class Text {
+        final String title;
+        final String author;
+        Text(String title, String author) {
+            this.title = title;
+            this.author = author;
+        }
+    }
+    private static final class Codes {
+        final StringDictionary dictionary;
+        final int titleCode;
+        final int titleGeneration;
+        final int authorCode;
+        final int authorGeneration;
+        Codes(StringDictionary dictionary, int titleCode, int authorCode) {
+            this.dictionary = dictionary;
+            this.titleCode = titleCode;
+            this.titleGeneration = dictionary.generation(titleCode);
+            this.authorCode = authorCode;
+            this.authorGeneration = dictionary.generation(authorCode);
+        }
+    }
+    private final int id;
+    private volatile Object text;
+    public Book(int id, String title, String author) {
+        this.id = id;
+        this.text = new Text(title, author);
+    }
+    public int getId() {
+        return id;
+    }
+    public String getTitle() {
+        while (true) {
+            Object current = text;
+            if (current instanceof Text) {
+                return ((Text) current).title;
+            }
+            Codes codes = (Codes) current;
+            String title = codes.dictionary.get(codes.titleCode, codes.titleGeneration);
+            if (title != null || codes.titleCode == StringDictionary.NULL || text == current) {
+                return title;
+            }
+        }
+    }
+    public String getAuthor() {
+        while (true) {
+            Object current = text;
+            if (current instanceof Text) {
+                return ((Text) current).author;
+            }
+            Codes codes = (Codes) current;
+            String author = codes.dictionary.get(codes.authorCode, codes.authorGeneration);
+            if (author != null || codes.authorCode == StringDictionary.NULL || text == current) {
+                return author;
+            }
+        }
+    }
+    public int getTitleCode() {
+        Object current = text;
+        return current instanceof Codes ? ((Codes) current).titleCode : StringDictionary.NULL;
+    }
+    public int getAuthorCode() {
+        Object current = text;
+        return current instanceof Codes ? ((Codes) current).authorCode : StringDictionary.NULL;
+    }
+    void bind(StringDictionary dictionary) {
+        Object current = text;
+        if (current instanceof Codes) {
+            if (((Codes) current).dictionary != dictionary) {
+                throw new IllegalArgumentException("Book " + id + " already belongs to another library.");
+            }
+            return;
+        }
+        Text strings = (Text) current;
+        text = new Codes(dictionary, dictionary.intern(strings.title), dictionary.intern(strings.author));
+    }
+    void retire() {
+        Object current = text;
+        if (current instanceof Codes) {
+            Codes codes = (Codes) current;
+            text = new Text(getTitle(), getAuthor());
+            codes.dictionary.release(codes.titleCode);
+            codes.dictionary.release(codes.authorCode);
+        }
+    }
+    public boolean sameAuthor(Book other) {
+        return Objects.equals(getAuthor(), other.getAuthor());
+    }
+    @Override
+    public String toString() {
+        return "ID: " + getId() + ", Title: " + getTitle() + ", Author: " + getAuthor();
+    }
+}
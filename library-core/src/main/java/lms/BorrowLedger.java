@@ -0,0 +1,340 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+class BorrowLedger {
+    private static final int DELTA_CAPACITY = 256;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final AtomicInteger size = new AtomicInteger();
+    public BorrowLedger(int concurrency) {
+        int n = 1;
+        while (n < concurrency) {
+            n <<= 1;
+        }
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = n - 1;
+    }
+    private int stripeIndex(int bookId) {
+        int h = bookId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    private Stripe stripeFor(int bookId) {
+        return stripes[stripeIndex(bookId)];
+    }
+    public int size() {
+        return size.get();
+    }
+    public boolean containsKey(int bookId) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            return stripe.indexOf(bookId) != Stripe.ABSENT;
+        }
+    }
+    public int get(int bookId, int missing) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            return stripe.get(bookId, missing);
+        }
+    }
+    public boolean putIfAbsent(int bookId, int memberId) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            if (!stripe.insert(bookId, memberId)) {
+                return false;
+            }
+        }
+        size.incrementAndGet();
+        return true;
+    }
+    public boolean remove(int bookId, int memberId) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            if (!stripe.remove(bookId, memberId)) {
+                return false;
+            }
+        }
+        size.decrementAndGet();
+        return true;
+    }
+    public int removeAll(int[] bookIds, int memberId) {
+        long[] byStripe = new long[bookIds.length];
+        for (int i = 0; i < bookIds.length; i++) {
+            byStripe[i] = IdSorter.pack(stripeIndex(bookIds[i]), bookIds[i]);
+        }
+        Arrays.sort(byStripe);
+        int removed = 0;
+        int i = 0;
+        while (i < byStripe.length) {
+            Stripe stripe = stripes[(int) (byStripe[i] >>> 32)];
+            synchronized (stripe) {
+                long current = byStripe[i] >>> 32;
+                while (i < byStripe.length && byStripe[i] >>> 32 == current) {
+                    if (stripe.remove(IdSorter.position(byStripe[i]), memberId)) {
+                        removed++;
+                    }
+                    i++;
+                }
+            }
+        }
+        size.addAndGet(-removed);
+        return removed;
+    }
+    public void forEachOrdered(IntPairConsumer action) {
+        forEachInRange(Integer.MIN_VALUE, Integer.MAX_VALUE, action);
+    }
+    public void forEachInRange(int fromBookId, int toBookId, IntPairConsumer action) {
+        int[][] keys = new int[stripes.length][];
+        int[][] values = new int[stripes.length][];
+        for (int s = 0; s < stripes.length; s++) {
+            synchronized (stripes[s]) {
+                stripes[s].copyRange(fromBookId, toBookId, keys, values, s);
+            }
+        }
+        mergeOrdered(keys, values, action);
+    }
+    static void mergeOrdered(int[][] keys, int[][] values, IntPairConsumer action) {
+        int[] heap = new int[keys.length];
+        int[] cursor = new int[keys.length];
+        int heapSize = 0;
+        for (int s = 0; s < keys.length; s++) {
+            if (keys[s].length > 0) {
+                heap[heapSize++] = s;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, keys, values, cursor);
+        }
+        while (heapSize > 0) {
+            int s = heap[0];
+            int c = cursor[s]++;
+            action.accept(keys[s][c], values[s][c]);
+            if (cursor[s] == keys[s].length) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, keys, values, cursor);
+        }
+    }
+    private static boolean before(int a, int b, int[][] keys, int[][] values, int[] cursor) {
+        int keyA = keys[a][cursor[a]];
+        int keyB = keys[b][cursor[b]];
+        return keyA < keyB || (keyA == keyB && values[a][cursor[a]] < values[b][cursor[b]]);
+    }
+    private static void siftDown(int[] heap, int heapSize, int i, int[][] keys, int[][] values, int[] cursor) {
+        if (heapSize == 0) {
+            return;
+        }
+        int s = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < heapSize) {
+            int c = heap[child];
+            if (child + 1 < heapSize && before(heap[child + 1], c, keys, values, cursor)) {
+                child++;
+                c = heap[child];
+            }
+            if (!before(c, s, keys, values, cursor)) {
+                break;
+            }
+            heap[i] = c;
+            i = child;
+        }
+        heap[i] = s;
+    }
+    public View snapshot() {
+        View view = new View(stripes.length);
+        for (int s = 0; s < stripes.length; s++) {
+            synchronized (stripes[s]) {
+                stripes[s].share(view, s);
+                view.size += view.sizes[s] + view.deltaKeys[s].length;
+            }
+        }
+        return view;
+    }
+    static final class View {
+        final int[][] keys;
+        final int[][] values;
+        final int[] sizes;
+        final int[][] deltaKeys;
+        final int[][] deltaValues;
+        int size;
+        View(int stripeCount) {
+            keys = new int[stripeCount][];
+            values = new int[stripeCount][];
+            sizes = new int[stripeCount];
+            deltaKeys = new int[stripeCount][];
+            deltaValues = new int[stripeCount][];
+        }
+        public int size() {
+            return size;
+        }
+        public void forEachOrdered(IntPairConsumer action) {
+            forEachInRange(Integer.MIN_VALUE, Integer.MAX_VALUE, action);
+        }
+        public void forEachInRange(int fromBookId, int toBookId, IntPairConsumer action) {
+            int[][] outKeys = new int[keys.length][];
+            int[][] outValues = new int[keys.length][];
+            for (int s = 0; s < keys.length; s++) {
+                Stripe.copyRange(keys[s], values[s], sizes[s], deltaKeys[s], deltaValues[s], deltaKeys[s].length,
+                    fromBookId, toBookId, outKeys, outValues, s);
+            }
+            mergeOrdered(outKeys, outValues, action);
+        }
+    }
+    public int[][] toArrays() {
+        int[][] keys = new int[stripes.length][];
+        int[][] values = new int[stripes.length][];
+        int total = 0;
+        for (int s = 0; s < stripes.length; s++) {
+            synchronized (stripes[s]) {
+                stripes[s].copyRange(Integer.MIN_VALUE, Integer.MAX_VALUE, keys, values, s);
+            }
+            total += keys[s].length;
+        }
+        int[] bookIds = new int[total];
+        int[] memberIds = new int[total];
+        int[] n = new int[1];
+        mergeOrdered(keys, values, (bookId, memberId) -> {
+            bookIds[n[0]] = bookId;
+            memberIds[n[0]] = memberId;
+            n[0]++;
+        });
+        return new int[][] {bookIds, memberIds};
+    }
+    private static final class Stripe {
+        static final int ABSENT = Integer.MIN_VALUE;
+        private int[] keys = new int[16];
+        private int[] values = new int[16];
+        private int size;
+        private final int[] deltaKeys = new int[DELTA_CAPACITY];
+        private final int[] deltaValues = new int[DELTA_CAPACITY];
+        private int deltaSize;
+        private boolean shared;
+        int indexOf(int key) {
+            int i = Arrays.binarySearch(deltaKeys, 0, deltaSize, key);
+            if (i >= 0) {
+                return -i - 1;
+            }
+            i = Arrays.binarySearch(keys, 0, size, key);
+            return i >= 0 ? i : ABSENT;
+        }
+        int get(int key, int missing) {
+            int i = indexOf(key);
+            if (i == ABSENT) {
+                return missing;
+            }
+            return i >= 0 ? values[i] : deltaValues[-i - 1];
+        }
+        boolean insert(int key, int value) {
+            if (Arrays.binarySearch(keys, 0, size, key) >= 0) {
+                return false;
+            }
+            int i = Arrays.binarySearch(deltaKeys, 0, deltaSize, key);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            System.arraycopy(deltaKeys, i, deltaKeys, i + 1, deltaSize - i);
+            System.arraycopy(deltaValues, i, deltaValues, i + 1, deltaSize - i);
+            deltaKeys[i] = key;
+            deltaValues[i] = value;
+            if (++deltaSize == DELTA_CAPACITY) {
+                mergeDelta();
+            }
+            return true;
+        }
+        boolean remove(int key, int value) {
+            int i = Arrays.binarySearch(deltaKeys, 0, deltaSize, key);
+            if (i >= 0) {
+                if (deltaValues[i] != value) {
+                    return false;
+                }
+                System.arraycopy(deltaKeys, i + 1, deltaKeys, i, deltaSize - i - 1);
+                System.arraycopy(deltaValues, i + 1, deltaValues, i, deltaSize - i - 1);
+                deltaSize--;
+                return true;
+            }
+            i = Arrays.binarySearch(keys, 0, size, key);
+            if (i < 0 || values[i] != value) {
+                return false;
+            }
+            unshare();
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+            return true;
+        }
+        private void unshare() {
+            if (shared) {
+                keys = keys.clone();
+                values = values.clone();
+                shared = false;
+            }
+        }
+        private void mergeDelta() {
+            unshare();
+            int total = size + deltaSize;
+            if (total > keys.length) {
+                int capacity = Math.max(total, keys.length + (keys.length >> 1));
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            int i = size - 1;
+            int j = deltaSize - 1;
+            for (int k = total - 1; j >= 0; k--) {
+                if (i >= 0 && keys[i] > deltaKeys[j]) {
+                    keys[k] = keys[i];
+                    values[k] = values[i--];
+                } else {
+                    keys[k] = deltaKeys[j];
+                    values[k] = deltaValues[j--];
+                }
+            }
+            size = total;
+            deltaSize = 0;
+        }
+        void copyRange(int from, int to, int[][] outKeys, int[][] outValues, int slot) {
+            copyRange(keys, values, size, deltaKeys, deltaValues, deltaSize, from, to, outKeys, outValues, slot);
+        }
+        void share(View view, int slot) {
+            shared = true;
+            view.keys[slot] = keys;
+            view.values[slot] = values;
+            view.sizes[slot] = size;
+            view.deltaKeys[slot] = Arrays.copyOf(deltaKeys, deltaSize);
+            view.deltaValues[slot] = Arrays.copyOf(deltaValues, deltaSize);
+        }
+        static void copyRange(int[] keys, int[] values, int size, int[] deltaKeys, int[] deltaValues, int deltaSize,
+                int from, int to, int[][] outKeys, int[][] outValues, int slot) {
+            int mainFrom = lowerBound(keys, size, from);
+            int mainTo = upperBound(keys, size, to);
+            int deltaFrom = lowerBound(deltaKeys, deltaSize, from);
+            int deltaTo = upperBound(deltaKeys, deltaSize, to);
+            int n = (mainTo - mainFrom) + (deltaTo - deltaFrom);
+            int[] k = new int[n];
+            int[] v = new int[n];
+            int i = mainFrom;
+            int j = deltaFrom;
+            for (int o = 0; o < n; o++) {
+                if (j >= deltaTo || (i < mainTo && keys[i] < deltaKeys[j])) {
+                    k[o] = keys[i];
+                    v[o] = values[i++];
+                } else {
+                    k[o] = deltaKeys[j];
+                    v[o] = deltaValues[j++];
+                }
+            }
+            outKeys[slot] = k;
+            outValues[slot] = v;
+        }
+        private static int lowerBound(int[] a, int n, int key) {
+            int i = Arrays.binarySearch(a, 0, n, key);
+            return i >= 0 ? i : -i - 1;
+        }
+        private static int upperBound(int[] a, int n, int key) {
+            int i = Arrays.binarySearch(a, 0, n, key);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package lms;
+import java.util.concurrent.*;
+import java.util.function.*;
+class BufferedListener implements LibraryListener {
+    private final ConcurrentLinkedQueue<Consumer<LibraryListener>> events = new ConcurrentLinkedQueue<>();
+    public int pending() {
+        return events.size();
+    }
+    public void drainTo(LibraryListener target) {
+        Consumer<LibraryListener> event;
+        while ((event = events.poll()) != null) {
+            event.accept(target);
+        }
+    }
+    public void bookAdded(Book book) {
+        events.add(target -> target.bookAdded(book));
+    }
+    public void memberAdded(Member member) {
+        events.add(target -> target.memberAdded(member));
+    }
+    public void bookDeleted(Book book) {
+        events.add(target -> target.bookDeleted(book));
+    }
+    public void memberRemoved(int memberId) {
+        events.add(target -> target.memberRemoved(memberId));
+    }
+    public void bookBorrowed(int memberId, int bookId) {
+        events.add(target -> target.bookBorrowed(memberId, bookId));
+    }
+    public void bookReturned(int memberId, int bookId) {
+        events.add(target -> target.bookReturned(memberId, bookId));
+    }
+    public void loanScheduled(int memberId, int bookId, long checkoutMillis, long dueMillis) {
+        events.add(target -> target.loanScheduled(memberId, bookId, checkoutMillis, dueMillis));
+    }
+    public void titleAdded(Title title, int[] copyIds) {
+        int[] copies = copyIds.clone();
+        events.add(target -> target.titleAdded(title, copies));
+    }
+}
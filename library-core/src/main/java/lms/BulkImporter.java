@@ -0,0 +1,399 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+class BulkImporter {
+    private static final int BATCH_SIZE = 4096;
+    private static final int ID = 0;
+    private static final int TEXT = 1;
+    private static final int EXTRA = 2;
+    private final Library library;
+    private byte[] line = new byte[512];
+    private int lineLength;
+    private byte[] scratch = new byte[512];
+    private final int[] start = new int[3];
+    private final int[] end = new int[3];
+    private final byte[] escapes = new byte[3];
+    private int fieldCount;
+    private String error;
+    public BulkImporter(Library library) {
+        this.library = library;
+    }
+    public ImportReport importBooks(Path file) throws IOException {
+        return importFile(file, true);
+    }
+    public ImportReport importMembers(Path file) throws IOException {
+        return importFile(file, false);
+    }
+    private ImportReport importFile(Path file, boolean books) throws IOException {
+        ImportReport report = new ImportReport(file, books ? "books" : "members");
+        long begin = System.nanoTime();
+        Book[] bookBatch = books ? new Book[BATCH_SIZE] : null;
+        Member[] memberBatch = books ? null : new Member[BATCH_SIZE];
+        long[] batchLines = new long[BATCH_SIZE];
+        int batched = 0;
+        long lineNumber = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            lineLength = 0;
+            boolean eof = false;
+            while (!eof) {
+                buffer.clear();
+                eof = channel.read(buffer) < 0;
+                buffer.flip();
+                while (buffer.hasRemaining() || (eof && lineLength > 0)) {
+                    boolean complete = eof;
+                    while (buffer.hasRemaining()) {
+                        byte b = buffer.get();
+                        if (b == '\n') {
+                            complete = true;
+                            break;
+                        }
+                        if (lineLength == line.length) {
+                            line = Arrays.copyOf(line, line.length * 2);
+                        }
+                        line[lineLength++] = b;
+                    }
+                    if (!complete) {
+                        break;
+                    }
+                    lineNumber++;
+                    if (lineLength > 0 && line[lineLength - 1] == '\r') {
+                        lineLength--;
+                    }
+                    if (lineLength == 0 || isBlank()) {
+                        lineLength = 0;
+                        continue;
+                    }
+                    boolean parsed = parseLine(books);
+                    int id = parsed ? parseId() : 0;
+                    if (parsed && error != null && lineNumber == 1 && line[firstNonBlank()] != '{' && !hasDigit(start[ID], end[ID])) {
+                        lineLength = 0;
+                        continue;
+                    }
+                    report.rows++;
+                    if (!parsed || error != null) {
+                        report.reject(lineNumber, error);
+                    } else if (books) {
+                        bookBatch[batched] = new Book(id, text(TEXT), text(EXTRA));
+                        batchLines[batched++] = lineNumber;
+                    } else {
+                        memberBatch[batched] = new Member(id, text(TEXT));
+                        batchLines[batched++] = lineNumber;
+                    }
+                    lineLength = 0;
+                    if (batched == BATCH_SIZE) {
+                        flush(bookBatch, memberBatch, batched, batchLines, report);
+                        batched = 0;
+                    }
+                }
+            }
+        }
+        flush(bookBatch, memberBatch, batched, batchLines, report);
+        report.elapsedNanos = System.nanoTime() - begin;
+        return report;
+    }
+    private void flush(Book[] bookBatch, Member[] memberBatch, int count, long[] batchLines, ImportReport report) {
+        if (count == 0) {
+            return;
+        }
+        IntConsumer duplicate = i -> report.reject(batchLines[i], "duplicate id");
+        int accepted = bookBatch != null
+            ? library.addBooks(bookBatch, count, duplicate)
+            : library.addMembers(memberBatch, count, duplicate);
+        report.accepted += accepted;
+        Arrays.fill(bookBatch != null ? bookBatch : memberBatch, 0, count, null);
+    }
+    private boolean isBlank() {
+        return firstNonBlank() == lineLength;
+    }
+    private int firstNonBlank() {
+        int i = 0;
+        while (i < lineLength && (line[i] == ' ' || line[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+    private boolean parseLine(boolean books) {
+        error = null;
+        fieldCount = 0;
+        Arrays.fill(start, -1);
+        int expected = books ? 3 : 2;
+        boolean ok = line[firstNonBlank()] == '{' ? parseJson() : parseCsv();
+        if (!ok) {
+            return false;
+        }
+        for (int f = 0; f < expected; f++) {
+            if (start[f] < 0) {
+                error = "expected " + expected + " fields";
+                return false;
+            }
+        }
+        return true;
+    }
+    private boolean parseCsv() {
+        int i = 0;
+        int field = 0;
+        while (true) {
+            if (field == 3) {
+                error = "too many fields";
+                return false;
+            }
+            while (i < lineLength && line[i] == ' ') {
+                i++;
+            }
+            if (i < lineLength && line[i] == '"') {
+                int s = ++i;
+                boolean escaped = false;
+                while (true) {
+                    if (i >= lineLength) {
+                        error = "unterminated quoted field";
+                        return false;
+                    }
+                    if (line[i] == '"') {
+                        if (i + 1 < lineLength && line[i + 1] == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                start[field] = s;
+                end[field] = i;
+                escapes[field] = (byte) (escaped ? '"' : 0);
+                i++;
+                while (i < lineLength && line[i] == ' ') {
+                    i++;
+                }
+            } else {
+                int s = i;
+                while (i < lineLength && line[i] != ',') {
+                    i++;
+                }
+                int e = i;
+                while (e > s && line[e - 1] == ' ') {
+                    e--;
+                }
+                start[field] = s;
+                end[field] = e;
+                escapes[field] = 0;
+            }
+            field++;
+            if (i >= lineLength) {
+                fieldCount = field;
+                return true;
+            }
+            if (line[i] != ',') {
+                error = "unexpected character after quoted field";
+                return false;
+            }
+            i++;
+        }
+    }
+    private boolean parseJson() {
+        int i = skipSpace(firstNonBlank() + 1);
+        while (i < lineLength && line[i] != '}') {
+            if (line[i] != '"') {
+                error = "expected a field name";
+                return false;
+            }
+            int keyStart = i + 1;
+            i = skipString(keyStart);
+            if (i < 0) {
+                return false;
+            }
+            int keyEnd = i - 1;
+            i = skipSpace(i);
+            if (i >= lineLength || line[i] != ':') {
+                error = "expected ':'";
+                return false;
+            }
+            i = skipSpace(i + 1);
+            int slot = slotFor(keyStart, keyEnd);
+            if (i < lineLength && line[i] == '"') {
+                int s = i + 1;
+                i = skipString(s);
+                if (i < 0) {
+                    return false;
+                }
+                if (slot >= 0) {
+                    start[slot] = s;
+                    end[slot] = i - 1;
+                    escapes[slot] = (byte) (hasBackslash(s, i - 1) ? '\\' : 0);
+                }
+            } else {
+                int s = i;
+                while (i < lineLength && line[i] != ',' && line[i] != '}' && line[i] != ' ') {
+                    i++;
+                }
+                if (slot >= 0) {
+                    start[slot] = s;
+                    end[slot] = i;
+                    escapes[slot] = 0;
+                }
+            }
+            i = skipSpace(i);
+            if (i < lineLength && line[i] == ',') {
+                i = skipSpace(i + 1);
+            }
+        }
+        if (i >= lineLength) {
+            error = "unterminated object";
+            return false;
+        }
+        return true;
+    }
+    private int slotFor(int keyStart, int keyEnd) {
+        if (keyIs(keyStart, keyEnd, "id") || keyIs(keyStart, keyEnd, "memberId")) {
+            return ID;
+        }
+        if (keyIs(keyStart, keyEnd, "title") || keyIs(keyStart, keyEnd, "name") || keyIs(keyStart, keyEnd, "memberName")) {
+            return TEXT;
+        }
+        if (keyIs(keyStart, keyEnd, "author")) {
+            return EXTRA;
+        }
+        return -1;
+    }
+    private boolean keyIs(int s, int e, String key) {
+        if (e - s != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (line[s + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private int skipSpace(int i) {
+        while (i < lineLength && (line[i] == ' ' || line[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+    private int skipString(int i) {
+        while (i < lineLength) {
+            if (line[i] == '\\') {
+                i += 2;
+            } else if (line[i] == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        error = "unterminated string";
+        return -1;
+    }
+    private boolean hasDigit(int s, int e) {
+        for (int i = s; i < e; i++) {
+            if (line[i] >= '0' && line[i] <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+    private boolean hasBackslash(int s, int e) {
+        for (int i = s; i < e; i++) {
+            if (line[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+    private int parseId() {
+        int i = start[ID];
+        int e = end[ID];
+        boolean negative = i < e && line[i] == '-';
+        if (negative || (i < e && line[i] == '+')) {
+            i++;
+        }
+        if (i == e || e - i > 10) {
+            error = "invalid id";
+            return 0;
+        }
+        long value = 0;
+        for (; i < e; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                error = "invalid id";
+                return 0;
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            error = "id out of range";
+            return 0;
+        }
+        return (int) value;
+    }
+    private String text(int field) {
+        int s = start[field];
+        int e = end[field];
+        byte[] source = line;
+        if (escapes[field] != 0) {
+            e = unescape(s, e, escapes[field]);
+            s = 0;
+            source = scratch;
+        }
+        for (int i = s; i < e; i++) {
+            if (source[i] < 0) {
+                return new String(source, s, e - s, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(source, s, e - s, StandardCharsets.ISO_8859_1);
+    }
+    private int hex(int i) {
+        int code = 0;
+        for (int k = 0; k < 4; k++) {
+            int digit = Character.digit(line[i + k], 16);
+            if (digit < 0) {
+                return -1;
+            }
+            code = (code << 4) | digit;
+        }
+        return code;
+    }
+    private int unescape(int s, int e, byte style) {
+        if (scratch.length < e - s) {
+            scratch = new byte[Math.max(e - s, scratch.length * 2)];
+        }
+        int n = 0;
+        for (int i = s; i < e; i++) {
+            byte b = line[i];
+            if (style == '"' && b == '"') {
+                i++;
+            } else if (style == '\\' && b == '\\' && i + 1 < e) {
+                byte c = line[++i];
+                if (c == 'u' && i + 4 < e) {
+                    int code = hex(i + 1);
+                    if (code >= 0) {
+                        i += 4;
+                        String decoded = String.valueOf((char) code);
+                        if (Character.isHighSurrogate((char) code) && i + 6 < e && line[i + 1] == '\\' && line[i + 2] == 'u') {
+                            int low = hex(i + 3);
+                            if (low >= 0 && Character.isLowSurrogate((char) low)) {
+                                i += 6;
+                                decoded = new String(new char[] {(char) code, (char) low});
+                            }
+                        }
+                        byte[] utf8 = decoded.getBytes(StandardCharsets.UTF_8);
+                        System.arraycopy(utf8, 0, scratch, n, utf8.length);
+                        n += utf8.length;
+                        continue;
+                    }
+                }
+                b = c == 'n' ? (byte) '\n' : c == 't' ? (byte) '\t' : c == 'r' ? (byte) '\r' : c == 'b' ? (byte) '\b' : c == 'f' ? (byte) '\f' : c;
+            }
+            scratch[n++] = b;
+        }
+        return n;
+    }
+}
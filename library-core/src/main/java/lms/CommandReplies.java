@@ -0,0 +1,9 @@
+package lms;
+interface CommandReplies {
+    void ok();
+    void refused();
+    void held();
+    void error(String message);
+    void book(Book book);
+    void member(Member member);
+}
@@ -0,0 +1,126 @@
+package lms;
+import java.util.*;
+class CountingHeap {
+    private static final class Entry {
+        final int key;
+        int count;
+        int position;
+        Entry(int key) {
+            this.key = key;
+        }
+    }
+    private final IntHashMap<Entry> entries = new IntHashMap<>();
+    private Entry[] heap = new Entry[16];
+    private int size;
+    public int size() {
+        return size;
+    }
+    public int count(int key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.count;
+    }
+    public void add(int key, int delta) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (delta <= 0) {
+                return;
+            }
+            entry = new Entry(key);
+            entries.put(key, entry);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            entry.position = size;
+            heap[size++] = entry;
+        }
+        entry.count += delta;
+        if (entry.count <= 0) {
+            entries.remove(key);
+            int position = entry.position;
+            Entry last = heap[--size];
+            heap[size] = null;
+            if (last != entry) {
+                place(last, position);
+                siftUp(position);
+                siftDown(last.position);
+            }
+        } else if (delta > 0) {
+            siftUp(entry.position);
+        } else {
+            siftDown(entry.position);
+        }
+    }
+    public void top(int k, IntPairConsumer action) {
+        int[] frontier = new int[Math.max(1, Math.min(k, size)) * 2 + 1];
+        int frontierSize = 0;
+        if (size > 0 && k > 0) {
+            frontier[frontierSize++] = 0;
+        }
+        for (int emitted = 0; emitted < k && frontierSize > 0; emitted++) {
+            int position = frontier[0];
+            frontier[0] = frontier[--frontierSize];
+            siftFrontier(frontier, frontierSize);
+            action.accept(heap[position].key, heap[position].count);
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                int i = frontierSize++;
+                while (i > 0 && before(heap[child], heap[frontier[(i - 1) / 2]])) {
+                    frontier[i] = frontier[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                frontier[i] = child;
+            }
+        }
+    }
+    private void siftFrontier(int[] frontier, int frontierSize) {
+        int i = 0;
+        int position = frontierSize > 0 ? frontier[0] : 0;
+        int child;
+        while ((child = 2 * i + 1) < frontierSize) {
+            if (child + 1 < frontierSize && before(heap[frontier[child + 1]], heap[frontier[child]])) {
+                child++;
+            }
+            if (!before(heap[frontier[child]], heap[position])) {
+                break;
+            }
+            frontier[i] = frontier[child];
+            i = child;
+        }
+        if (frontierSize > 0) {
+            frontier[i] = position;
+        }
+    }
+    private static boolean before(Entry a, Entry b) {
+        return a.count > b.count || (a.count == b.count && a.key < b.key);
+    }
+    private void place(Entry entry, int position) {
+        heap[position] = entry;
+        entry.position = position;
+    }
+    private void siftUp(int position) {
+        Entry entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!before(entry, heap[parent])) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(entry, position);
+    }
+    private void siftDown(int position) {
+        Entry entry = heap[position];
+        int child;
+        while ((child = 2 * position + 1) < size) {
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], entry)) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(entry, position);
+    }
+}
@@ -0,0 +1,257 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+class IdHistory {
+    private static final int SEGMENT_SIZE = 4096;
+    private static final ExecutorService SPILLER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-history-spill");
+        t.setDaemon(true);
+        return t;
+    });
+    private final String name;
+    private final int[] ring;
+    private long first;
+    private long next;
+    private Path spillDirectory;
+    private long diskRetention;
+    private long diskFirst;
+    private final TreeMap<Long, int[]> unwritten = new TreeMap<>();
+    private long deletedBelow;
+    private boolean spillQueued;
+    private IOException spillFailure;
+    public IdHistory(String name, int memoryEntries) {
+        this.name = name;
+        int segments = Math.max(2, (memoryEntries + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        this.ring = new int[segments * SEGMENT_SIZE];
+    }
+    public synchronized void spillTo(Path directory, long retainedEntries) throws IOException {
+        if (spillDirectory != null) {
+            throw new IllegalStateException(name + " history already spills to " + spillDirectory);
+        }
+        Files.createDirectories(directory);
+        TreeSet<Long> segments = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-*.seg")) {
+            for (Path file : files) {
+                String digits = file.getFileName().toString();
+                digits = digits.substring(name.length() + 1, digits.length() - 4);
+                if (!digits.isEmpty() && digits.length() <= 18 && digits.chars().allMatch(Character::isDigit)) {
+                    segments.add(Long.parseLong(digits));
+                }
+            }
+        }
+        spillDirectory = directory;
+        diskRetention = retainedEntries;
+        if (segments.isEmpty()) {
+            diskFirst = first;
+            deletedBelow = first / SEGMENT_SIZE;
+            return;
+        }
+        long last = segments.last();
+        long oldest = last;
+        while (segments.contains(oldest - 1)) {
+            oldest--;
+        }
+        rebase((last + 1) * SEGMENT_SIZE);
+        diskFirst = oldest * SEGMENT_SIZE;
+        while (first - diskFirst > diskRetention) {
+            diskFirst += SEGMENT_SIZE;
+        }
+        deletedBelow = diskFirst / SEGMENT_SIZE;
+        for (long segment : segments.headSet(deletedBelow)) {
+            Files.deleteIfExists(segmentFile(segment));
+        }
+    }
+    private void rebase(long newFirst) {
+        int[] held = new int[(int) (next - first)];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = ring[(int) ((first + i) % ring.length)];
+        }
+        first = newFirst;
+        next = newFirst + held.length;
+        for (int i = 0; i < held.length; i++) {
+            ring[(int) ((first + i) % ring.length)] = held[i];
+        }
+    }
+    public synchronized void append(int id) {
+        if (next - first == ring.length) {
+            evictOldestSegment();
+        }
+        ring[(int) (next % ring.length)] = id;
+        next++;
+    }
+    private void evictOldestSegment() {
+        if (spillDirectory != null) {
+            int[] segment = new int[SEGMENT_SIZE];
+            int start = (int) (first % ring.length);
+            System.arraycopy(ring, start, segment, 0, SEGMENT_SIZE);
+            unwritten.put(first / SEGMENT_SIZE, segment);
+            while (first + SEGMENT_SIZE - diskFirst > diskRetention) {
+                unwritten.remove(diskFirst / SEGMENT_SIZE);
+                diskFirst += SEGMENT_SIZE;
+            }
+            if (!spillQueued) {
+                spillQueued = true;
+                SPILLER.execute(this::spillPending);
+            }
+        } else {
+            diskFirst = first + SEGMENT_SIZE;
+        }
+        first += SEGMENT_SIZE;
+    }
+    private void spillPending() {
+        while (true) {
+            long segment;
+            int[] ids;
+            synchronized (this) {
+                Map.Entry<Long, int[]> entry = unwritten.firstEntry();
+                if (entry == null) {
+                    spillQueued = false;
+                    notifyAll();
+                    return;
+                }
+                segment = entry.getKey();
+                ids = entry.getValue();
+            }
+            long from;
+            long to;
+            try {
+                writeSegment(segment, ids);
+                synchronized (this) {
+                    unwritten.remove(segment, ids);
+                    from = deletedBelow;
+                    to = diskFirst / SEGMENT_SIZE;
+                    deletedBelow = Math.max(from, to);
+                }
+                for (long stale = from; stale < to; stale++) {
+                    Files.deleteIfExists(segmentFile(stale));
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    spillFailure = e;
+                    spillQueued = false;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+    private Path segmentFile(long segment) {
+        return spillDirectory.resolve(name + "-" + segment + ".seg");
+    }
+    private void writeSegment(long segment, int[] ids) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_SIZE * 4);
+        buffer.asIntBuffer().put(ids);
+        try (FileChannel channel = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+    public synchronized void flush() throws IOException {
+        while (spillQueued) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        IOException failure = spillFailure;
+        spillFailure = null;
+        if (failure != null) {
+            throw new IOException("Could not spill " + name + " history.", failure);
+        }
+    }
+    public synchronized long firstSequence() {
+        return Math.min(diskFirst, first);
+    }
+    public synchronized long nextSequence() {
+        return next;
+    }
+    public int read(long fromSequence, int[] out, int offset, int max) throws IOException {
+        long from = fromSequence;
+        int n = 0;
+        while (n < max) {
+            long segment;
+            int start;
+            int count;
+            synchronized (this) {
+                from = Math.max(from, firstSequence());
+                if (from >= next) {
+                    break;
+                }
+                if (from >= first) {
+                    while (n < max && from < next) {
+                        out[offset + n++] = ring[(int) (from % ring.length)];
+                        from++;
+                    }
+                    continue;
+                }
+                segment = from / SEGMENT_SIZE;
+                start = (int) (from % SEGMENT_SIZE);
+                count = (int) Math.min(max - n, Math.min(SEGMENT_SIZE - start, first - from));
+                int[] pending = unwritten.get(segment);
+                if (pending != null) {
+                    System.arraycopy(pending, start, out, offset + n, count);
+                    n += count;
+                    from += count;
+                    continue;
+                }
+            }
+            try {
+                readSegment(segment, start, out, offset + n, count);
+            } catch (NoSuchFileException e) {
+                synchronized (this) {
+                    if (from >= firstSequence()) {
+                        throw e;
+                    }
+                }
+                continue;
+            }
+            n += count;
+            from += count;
+        }
+        return n;
+    }
+    private void readSegment(long segment, int start, int[] out, int offset, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * 4);
+        try (FileChannel channel = FileChannel.open(segmentFile(segment), StandardOpenOption.READ)) {
+            long position = start * 4L;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Truncated " + name + " history segment " + segment);
+                }
+            }
+        }
+        buffer.flip();
+        buffer.asIntBuffer().get(out, offset, count);
+    }
+    public synchronized int[] latest(int max) {
+        int count = (int) Math.min(max, next - first);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = ring[(int) ((next - count + i) % ring.length)];
+        }
+        return result;
+    }
+    public synchronized String describeLatest(int max, boolean newestFirst) {
+        int[] ids = latest(max);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(ids[newestFirst ? ids.length - 1 - i : i]);
+        }
+        sb.append("]");
+        long total = next - firstSequence();
+        if (total > ids.length) {
+            sb.append(" (latest ").append(ids.length).append(" of ").append(total).append(")");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package lms;
+import java.util.concurrent.*;
+interface IdSorter {
+    void sort(long[] keyed, int from, int to);
+    static long pack(int id, int position) {
+        return ((long) id << 32) | (position & 0xFFFFFFFFL);
+    }
+    static int position(long keyed) {
+        return (int) keyed;
+    }
+    static IdSorter forSize(int size) {
+        if (size >= ParallelIdSorter.MIN_PARALLEL_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ParallelIdSorter.COMMON;
+        }
+        return IntroSorter.INSTANCE;
+    }
+}
@@ -0,0 +1,50 @@
+package lms;
+import java.nio.file.*;
+import java.util.*;
+class ImportReport {
+    private static final int MAX_LISTED_REJECTS = 20;
+    private final Path file;
+    private final String kind;
+    long rows;
+    long accepted;
+    long rejected;
+    long elapsedNanos;
+    private final ArrayList<String> rejects = new ArrayList<>();
+    ImportReport(Path file, String kind) {
+        this.file = file;
+        this.kind = kind;
+    }
+    void reject(long lineNumber, String reason) {
+        rejected++;
+        if (rejects.size() < MAX_LISTED_REJECTS) {
+            rejects.add("line " + lineNumber + ": " + reason);
+        }
+    }
+    public long getRows() {
+        return rows;
+    }
+    public long getAccepted() {
+        return accepted;
+    }
+    public long getRejected() {
+        return rejected;
+    }
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Imported ").append(kind).append(" from ").append(file.getFileName())
+          .append(": ").append(rows).append(" rows, ").append(accepted).append(" accepted, ")
+          .append(rejected).append(" rejected in ").append(elapsedNanos / 1000000).append(" ms (")
+          .append((long) rowsPerSecond()).append(" rows/s)");
+        for (String reject : rejects) {
+            sb.append("\n  rejected ").append(reject);
+        }
+        if (rejected > rejects.size()) {
+            sb.append("\n  ... ").append(rejected - rejects.size()).append(" more rejected rows");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package lms;
+import java.util.*;
+class IntHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    public IntHashMap() {
+        this(MIN_CAPACITY);
+    }
+    public IntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+    }
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    public int size() {
+        return size;
+    }
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+    public V putIfAbsent(int key, V value) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) {
+                break;
+            }
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+    }
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+    public void ensureCapacity(int expectedSize) {
+        int capacity = keys.length;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        if (capacity != keys.length) {
+            rehash(capacity);
+        }
+    }
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+}
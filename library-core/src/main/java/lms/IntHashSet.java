@@ -0,0 +1,134 @@
+package lms;
+import java.util.*;
+import java.util.function.*;
+class IntHashSet {
+    private static final int MIN_CAPACITY = 16;
+    private int[] keys;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    public IntHashSet() {
+        this(MIN_CAPACITY);
+    }
+    public IntHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+    }
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+    public int size() {
+        return size;
+    }
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    public boolean contains(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+    public boolean add(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        used[i] = true;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+    public boolean remove(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (!used[i]) {
+                break;
+            }
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                gap = i;
+            }
+        }
+        used[gap] = false;
+    }
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldUsed[j]) {
+                int i = slot(oldKeys[j]);
+                while (used[i]) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                used[i] = true;
+            }
+        }
+    }
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+    public IntHashSet copy() {
+        IntHashSet copy = new IntHashSet();
+        copy.keys = keys.clone();
+        copy.used = used.clone();
+        copy.size = size;
+        copy.mask = mask;
+        copy.resizeAt = resizeAt;
+        return copy;
+    }
+    public int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+}
@@ -0,0 +1,4 @@
+package lms;
+interface IntPairConsumer {
+    void accept(int first, int second);
+}
@@ -0,0 +1,95 @@
+package lms;
+class IntroSorter implements IdSorter {
+    static final IntroSorter INSTANCE = new IntroSorter();
+    private static final int INSERTION_THRESHOLD = 24;
+    public void sort(long[] a, int from, int to) {
+        if (to - from > 1) {
+            introSort(a, from, to - 1, 2 * (31 - Integer.numberOfLeadingZeros(to - from)));
+        }
+    }
+    private void introSort(long[] a, int low, int high, int depth) {
+        while (high - low >= INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a, low, high);
+                return;
+            }
+            int p = partition(a, low, high);
+            if (p - low < high - p) {
+                introSort(a, low, p, depth);
+                low = p + 1;
+            } else {
+                introSort(a, p + 1, high, depth);
+                high = p;
+            }
+        }
+        insertionSort(a, low, high);
+    }
+    private int partition(long[] a, int low, int high) {
+        int mid = low + ((high - low) >>> 1);
+        if (a[mid] < a[low]) {
+            swap(a, mid, low);
+        }
+        if (a[high] < a[low]) {
+            swap(a, high, low);
+        }
+        if (a[high] < a[mid]) {
+            swap(a, high, mid);
+        }
+        long pivot = a[mid];
+        int i = low - 1;
+        int j = high + 1;
+        while (true) {
+            do {
+                i++;
+            } while (a[i] < pivot);
+            do {
+                j--;
+            } while (a[j] > pivot);
+            if (i >= j) {
+                return j;
+            }
+            swap(a, i, j);
+        }
+    }
+    private void insertionSort(long[] a, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            long v = a[i];
+            int j = i - 1;
+            while (j >= low && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+    private void heapSort(long[] a, int low, int high) {
+        int n = high - low + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, low, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, low, low + end);
+            siftDown(a, low, 0, end);
+        }
+    }
+    private void siftDown(long[] a, int base, int i, int n) {
+        long v = a[base + i];
+        int child;
+        while ((child = 2 * i + 1) < n) {
+            if (child + 1 < n && a[base + child + 1] > a[base + child]) {
+                child++;
+            }
+            if (a[base + child] <= v) {
+                break;
+            }
+            a[base + i] = a[base + child];
+            i = child;
+        }
+        a[base + i] = v;
+    }
+    private static void swap(long[] a, int i, int j) {
+        long t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
@@ -0,0 +1,74 @@
+package lms;
+import java.util.concurrent.atomic.*;
+class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return SUB_COUNT + shift * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+        return (long) (SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT) << shift;
+    }
+    static long upperBound(int bucket) {
+        return bucket < SUB_COUNT ? bucket : lowerBound(bucket) + (1L << ((bucket - SUB_COUNT) / SUB_COUNT)) - 1;
+    }
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        total.add(nanos);
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+            seen = max.get();
+        }
+    }
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, total.sum(), max.get());
+    }
+    static final class Snapshot {
+        private final long[] counts;
+        final long count;
+        final long totalNanos;
+        final long maxNanos;
+        Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+        double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+        long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,1035 @@
+package lms;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+class Library {
+    private SegmentedList<Book> books;
+    private SegmentedList<Member> members;
+    private IntHashMap<Book> bookIndex;
+    private IntHashMap<Member> memberIndex;
+    private BorrowLedger borrowRecords;
+    private IdHistory addedBookIds;
+    private IdHistory addedMemberIds;
+    private IdHistory removedBookIds;
+    private IdHistory removedMemberIds;
+    private boolean recordingHistory = true;
+    private static final int HISTORY_MEMORY_ENTRIES = 64 * 1024;
+    private static final int HISTORY_DISPLAY_ENTRIES = 100;
+    private static final int ATTACH_BACKLOG_LIMIT = 1024;
+    private IdSorter sorter;
+    private MappedCatalog mountedCatalog;
+    private IntHashSet mountedDeleted = new IntHashSet();
+    private final StringDictionary dictionary;
+    private IntPredicate foreignMembers = id -> false;
+    private final ReentrantReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    private final StripedLock loanLocks = new StripedLock(64);
+    private final MemberLoanIndex loansByMember = new MemberLoanIndex(64);
+    private final CopyOnWriteArrayList<LibraryListener> listeners = new CopyOnWriteArrayList<>();
+    private final LibraryMetrics metrics = new LibraryMetrics();
+    private final LoanCalendar loanDates = new LoanCalendar(64);
+    private final IntHashMap<Title> titles = new IntHashMap<>();
+    private final IntHashMap<Title> titleOfCopy = new IntHashMap<>();
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private volatile LongSupplier clock = System::currentTimeMillis;
+    private volatile long loanPeriodMillis = 14L * 24 * 60 * 60 * 1000;
+    public Library() {
+        this(new StringDictionary());
+    }
+    Library(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        books = new SegmentedList<>(Book::getId);
+        members = new SegmentedList<>(Member::getMemberId);
+        bookIndex = new IntHashMap<>();
+        memberIndex = new IntHashMap<>();
+        borrowRecords = new BorrowLedger(64);
+        addedBookIds = new IdHistory("added-books", HISTORY_MEMORY_ENTRIES);
+        addedMemberIds = new IdHistory("added-members", HISTORY_MEMORY_ENTRIES);
+        removedBookIds = new IdHistory("removed-books", HISTORY_MEMORY_ENTRIES);
+        removedMemberIds = new IdHistory("removed-members", HISTORY_MEMORY_ENTRIES);
+    }
+    public void addBook(Book book) {
+        long start = metrics.begin(LibraryMetrics.ADD_BOOK);
+        catalogLock.writeLock().lock();
+        try {
+            if (mountedBook(book.getId()) != null || bookIndex.containsKey(book.getId())) {
+                metrics.failed(LibraryMetrics.ADD_BOOK);
+                throw new IllegalArgumentException("Book ID already exists.");
+            }
+            announce(book);
+            bookIndex.put(book.getId(), book);
+            books.add(book);
+            remember(addedBookIds, book.getId());
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.ADD_BOOK, start);
+        }
+    }
+    public void addMember(Member member) {
+        long start = metrics.begin(LibraryMetrics.ADD_MEMBER);
+        catalogLock.writeLock().lock();
+        try {
+            if (memberIndex.containsKey(member.getMemberId())) {
+                metrics.failed(LibraryMetrics.ADD_MEMBER);
+                throw new IllegalArgumentException("Member ID already exists.");
+            }
+            announce(member);
+            memberIndex.put(member.getMemberId(), member);
+            members.add(member);
+            remember(addedMemberIds, member.getMemberId());
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.ADD_MEMBER, start);
+        }
+    }
+    private void announce(Book book) {
+        book.bind(dictionary);
+        try {
+            for (LibraryListener listener : listeners) {
+                listener.bookAdded(book);
+            }
+        } catch (RuntimeException e) {
+            book.retire();
+            throw e;
+        }
+    }
+    private void announce(Member member) {
+        member.bind(dictionary);
+        try {
+            for (LibraryListener listener : listeners) {
+                listener.memberAdded(member);
+            }
+        } catch (RuntimeException e) {
+            member.retire();
+            throw e;
+        }
+    }
+    public int addBooks(Book[] batch, int count, IntConsumer rejected) {
+        long start = metrics.begin(LibraryMetrics.ADD_BOOKS);
+        catalogLock.writeLock().lock();
+        try {
+            bookIndex.ensureCapacity(bookIndex.size() + count);
+            int accepted = 0;
+            for (int i = 0; i < count; i++) {
+                Book book = batch[i];
+                if (mountedBook(book.getId()) != null || bookIndex.containsKey(book.getId())) {
+                    metrics.failed(LibraryMetrics.ADD_BOOKS);
+                    rejected.accept(i);
+                    continue;
+                }
+                announce(book);
+                bookIndex.put(book.getId(), book);
+                books.add(book);
+                remember(addedBookIds, book.getId());
+                accepted++;
+            }
+            return accepted;
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.ADD_BOOKS, start);
+        }
+    }
+    public int addMembers(Member[] batch, int count, IntConsumer rejected) {
+        long start = metrics.begin(LibraryMetrics.ADD_MEMBERS);
+        catalogLock.writeLock().lock();
+        try {
+            memberIndex.ensureCapacity(memberIndex.size() + count);
+            int accepted = 0;
+            for (int i = 0; i < count; i++) {
+                Member member = batch[i];
+                if (memberIndex.containsKey(member.getMemberId())) {
+                    metrics.failed(LibraryMetrics.ADD_MEMBERS);
+                    rejected.accept(i);
+                    continue;
+                }
+                announce(member);
+                memberIndex.put(member.getMemberId(), member);
+                members.add(member);
+                remember(addedMemberIds, member.getMemberId());
+                accepted++;
+            }
+            return accepted;
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.ADD_MEMBERS, start);
+        }
+    }
+    public int restoreMembers(Member[] batch, int count) {
+        catalogLock.writeLock().lock();
+        try {
+            memberIndex.ensureCapacity(memberIndex.size() + count);
+            int restored = 0;
+            for (int i = 0; i < count; i++) {
+                Member member = batch[i];
+                if (memberIndex.containsKey(member.getMemberId())) {
+                    continue;
+                }
+                announce(member);
+                memberIndex.put(member.getMemberId(), member);
+                members.add(member);
+                restored++;
+            }
+            return restored;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public boolean deleteBookById(int id) {
+        long start = metrics.begin(LibraryMetrics.DELETE_BOOK);
+        catalogLock.writeLock().lock();
+        try {
+            Book book = bookIndex.get(id);
+            boolean mapped = book == null;
+            if (mapped && (book = mountedBook(id)) == null) {
+                metrics.failed(LibraryMetrics.DELETE_BOOK);
+                return false;
+            }
+            boolean lent = borrowRecords.containsKey(id);
+            int holder = borrowRecords.get(id, 0);
+            for (LibraryListener listener : listeners) {
+                if (lent) {
+                    listener.bookReturned(holder, id);
+                }
+                listener.bookDeleted(book);
+            }
+            if (lent) {
+                borrowRecords.remove(id, holder);
+                Member member = memberIndex.get(holder);
+                if (member != null) {
+                    member.returnBook(book);
+                }
+                loansByMember.remove(holder, id);
+                loanDates.cancel(id);
+            }
+            if (mapped) {
+                mountedDeleted.add(id);
+            } else {
+                bookIndex.remove(id);
+                books.remove(book);
+                book.retire();
+            }
+            Title title = titleOfCopy.remove(id);
+            if (title != null) {
+                title.copyIds.remove(id);
+                title.claim(id);
+            }
+            remember(removedBookIds, id);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.DELETE_BOOK, start);
+        }
+    }
+    public boolean removeMemberById(int id) {
+        long start = metrics.begin(LibraryMetrics.REMOVE_MEMBER);
+        catalogLock.writeLock().lock();
+        try {
+            Member member = memberIndex.get(id);
+            if (member == null) {
+                metrics.failed(LibraryMetrics.REMOVE_MEMBER);
+                return false;
+            }
+            for (int bookId : member.getBorrowedBookIds()) {
+                for (LibraryListener listener : listeners) {
+                    listener.bookReturned(id, bookId);
+                }
+            }
+            for (LibraryListener listener : listeners) {
+                listener.memberRemoved(id);
+            }
+            memberIndex.remove(id);
+            members.remove(member);
+            member.retire();
+            int[] released = member.releaseAll();
+            if (released.length > 0) {
+                borrowRecords.removeAll(released, id);
+                loansByMember.removeMember(id);
+                ArrayList<Title> refilled = new ArrayList<>();
+                for (int bookId : released) {
+                    loanDates.cancel(bookId);
+                    Title title = titleOfCopy.get(bookId);
+                    if (title != null) {
+                        title.release(bookId);
+                        refilled.add(title);
+                    }
+                }
+                for (Title title : refilled) {
+                    fillHolds(title);
+                }
+            }
+            remember(removedMemberIds, id);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.REMOVE_MEMBER, start);
+        }
+    }
+    public Book findBookById(int id) {
+        long start = metrics.begin(LibraryMetrics.FIND_BOOK);
+        catalogLock.readLock().lock();
+        try {
+            Book book = lookupBook(id);
+            if (book == null) {
+                metrics.failed(LibraryMetrics.FIND_BOOK);
+            }
+            return book;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(LibraryMetrics.FIND_BOOK, start);
+        }
+    }
+    private Book lookupBook(int id) {
+        Book book = bookIndex.get(id);
+        return book != null ? book : mountedBook(id);
+    }
+    private Book mountedBook(int id) {
+        if (mountedCatalog == null || mountedDeleted.contains(id)) {
+            return null;
+        }
+        return mountedCatalog.find(id);
+    }
+    public void mountCatalog(MappedCatalog catalog) {
+        catalogLock.writeLock().lock();
+        try {
+            if (mountedCatalog != null) {
+                throw new IllegalStateException("A catalog is already mounted.");
+            }
+            for (Book book : books) {
+                if (catalog.rowOf(book.getId()) >= 0) {
+                    throw new IllegalArgumentException("Book ID already exists: " + book.getId());
+                }
+            }
+            catalog.useDictionary(dictionary);
+            mountedCatalog = catalog;
+            mountedDeleted = new IntHashSet();
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public MappedCatalog unmountCatalog() {
+        catalogLock.writeLock().lock();
+        try {
+            MappedCatalog catalog = mountedCatalog;
+            if (catalog == null) {
+                return null;
+            }
+            MappedBook view = catalog.cursor();
+            bookIndex.ensureCapacity(bookIndex.size() + catalog.size() - mountedDeleted.size());
+            for (int row = 0; row < catalog.size(); row++) {
+                view.moveTo(row);
+                if (mountedDeleted.isEmpty() || !mountedDeleted.contains(view.getId())) {
+                    Book book = new Book(view.getId(), view.getTitle(), view.getAuthor());
+                    book.bind(dictionary);
+                    bookIndex.put(book.getId(), book);
+                    books.add(book);
+                }
+            }
+            mountedCatalog = null;
+            mountedDeleted = new IntHashSet();
+            catalog.releaseCodes();
+            return catalog;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public int bookCount() {
+        catalogLock.readLock().lock();
+        try {
+            int count = books.size();
+            if (mountedCatalog != null) {
+                count += mountedCatalog.size() - mountedDeleted.size();
+            }
+            return count;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    private void forEachBookLocked(Consumer<Book> action) {
+        for (Book book : books) {
+            action.accept(book);
+        }
+        forEachMapped(mountedCatalog, mountedDeleted, action);
+    }
+    static void forEachMapped(MappedCatalog catalog, IntHashSet deleted, Consumer<Book> action) {
+        if (catalog == null) {
+            return;
+        }
+        MappedBook view = catalog.cursor();
+        for (int row = 0; row < catalog.size(); row++) {
+            view.moveTo(row);
+            if (deleted.isEmpty() || !deleted.contains(view.getId())) {
+                action.accept(view);
+            }
+        }
+    }
+    public void forEachBook(Consumer<Book> action) {
+        catalogLock.readLock().lock();
+        try {
+            forEachBookLocked(action);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    private ArrayList<Book> allBooksLocked() {
+        ArrayList<Book> result = new ArrayList<>(books.size());
+        books.forEach(result::add);
+        if (mountedCatalog != null) {
+            for (int row = 0; row < mountedCatalog.size(); row++) {
+                if (mountedDeleted.isEmpty() || !mountedDeleted.contains(mountedCatalog.idAt(row))) {
+                    result.add(new MappedBook(mountedCatalog, row));
+                }
+            }
+        }
+        return result;
+    }
+    public Member findMemberById(int id) {
+        long start = metrics.begin(LibraryMetrics.FIND_MEMBER);
+        catalogLock.readLock().lock();
+        try {
+            Member member = memberIndex.get(id);
+            if (member == null) {
+                metrics.failed(LibraryMetrics.FIND_MEMBER);
+            }
+            return member;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(LibraryMetrics.FIND_MEMBER, start);
+        }
+    }
+    public boolean borrowBook(int memberId, int bookId) {
+        long start = metrics.begin(LibraryMetrics.BORROW);
+        catalogLock.readLock().lock();
+        try {
+            Member member = memberIndex.get(memberId);
+            Book book = lookupBook(bookId);
+            if ((member == null && !foreignMembers.test(memberId)) || book == null) {
+                metrics.failed(LibraryMetrics.BORROW);
+                return false;
+            }
+            ReentrantLock stripe = loanLocks.forKey(bookId);
+            stripe.lock();
+            try {
+                if (borrowRecords.containsKey(bookId)) {
+                    metrics.failed(LibraryMetrics.BORROW);
+                    return false;
+                }
+                long now = clock.getAsLong();
+                long due = now + loanPeriodMillis;
+                for (LibraryListener listener : listeners) {
+                    listener.bookBorrowed(memberId, bookId);
+                    listener.loanScheduled(memberId, bookId, now, due);
+                }
+                borrowRecords.putIfAbsent(bookId, memberId);
+                if (member != null) {
+                    member.borrowBook(book);
+                }
+                loansByMember.add(memberId, bookId);
+                Title title = titleOfCopy.get(bookId);
+                if (title != null) {
+                    title.claim(bookId);
+                }
+                loanDates.schedule(bookId, memberId, now, due);
+                return true;
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(LibraryMetrics.BORROW, start);
+        }
+    }
+    public boolean returnBook(int memberId, int bookId) {
+        long start = metrics.begin(LibraryMetrics.RETURN);
+        catalogLock.readLock().lock();
+        try {
+            Member member = memberIndex.get(memberId);
+            Book book = lookupBook(bookId);
+            if ((member == null && !foreignMembers.test(memberId)) || book == null) {
+                metrics.failed(LibraryMetrics.RETURN);
+                return false;
+            }
+            Title title = titleOfCopy.get(bookId);
+            ReentrantLock stripe = loanLocks.forKey(bookId);
+            stripe.lock();
+            try {
+                if (borrowRecords.get(bookId, memberId - 1) != memberId) {
+                    metrics.failed(LibraryMetrics.RETURN);
+                    return false;
+                }
+                for (LibraryListener listener : listeners) {
+                    listener.bookReturned(memberId, bookId);
+                }
+                borrowRecords.remove(bookId, memberId);
+                if (member != null) {
+                    member.returnBook(book);
+                }
+                loansByMember.remove(memberId, bookId);
+                loanDates.cancel(bookId);
+                if (title != null) {
+                    title.release(bookId);
+                }
+            } finally {
+                stripe.unlock();
+            }
+            if (title != null) {
+                fillHolds(title);
+            }
+            return true;
+        } finally {
+            catalogLock.readLock().unlock();
+            metrics.record(LibraryMetrics.RETURN, start);
+        }
+    }
+    public Title addTitle(int titleId, String titleText, String author, int[] copyIds) {
+        catalogLock.writeLock().lock();
+        try {
+            if (titles.containsKey(titleId)) {
+                throw new IllegalArgumentException("Title ID already exists.");
+            }
+            IntHashSet seen = new IntHashSet();
+            for (int copyId : copyIds) {
+                if (!seen.add(copyId) || lookupBook(copyId) != null) {
+                    throw new IllegalArgumentException("Book ID already exists: " + copyId);
+                }
+            }
+            for (int copyId : copyIds) {
+                addBook(new Book(copyId, titleText, author));
+            }
+            Title title = new Title(titleId, titleText, author);
+            for (LibraryListener listener : listeners) {
+                listener.titleAdded(title, copyIds);
+            }
+            registerTitle(title, copyIds);
+            return title;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public boolean restoreTitle(int titleId, String titleText, String author, int[] copyIds) {
+        catalogLock.writeLock().lock();
+        try {
+            if (titles.containsKey(titleId)) {
+                return false;
+            }
+            IntHashSet unclaimed = new IntHashSet();
+            for (int copyId : copyIds) {
+                if (lookupBook(copyId) != null && !titleOfCopy.containsKey(copyId)) {
+                    unclaimed.add(copyId);
+                }
+            }
+            Title title = new Title(titleId, titleText, author);
+            int[] accepted = unclaimed.toArray();
+            for (LibraryListener listener : listeners) {
+                listener.titleAdded(title, accepted);
+            }
+            registerTitle(title, accepted);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    private void registerTitle(Title title, int[] copyIds) {
+        titles.put(title.getTitleId(), title);
+        for (int copyId : copyIds) {
+            title.copyIds.add(copyId);
+            titleOfCopy.put(copyId, title);
+            if (!borrowRecords.containsKey(copyId)) {
+                title.release(copyId);
+            }
+        }
+    }
+    public Title findTitleById(int titleId) {
+        catalogLock.readLock().lock();
+        try {
+            return titles.get(titleId);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    public int borrowTitle(int memberId, int titleId) {
+        catalogLock.readLock().lock();
+        try {
+            Title title = titles.get(titleId);
+            if (title == null || memberIndex.get(memberId) == null) {
+                return Title.REFUSED;
+            }
+            if (title.holdsByMember.isEmpty() && claimCopy(title, memberId)) {
+                return Title.LENT;
+            }
+            if (!title.placeHold(memberId)) {
+                return Title.REFUSED;
+            }
+            fillHolds(title);
+            return title.holdsByMember.containsKey(memberId) ? Title.HELD : Title.LENT;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    public boolean cancelHold(int memberId, int titleId) {
+        catalogLock.readLock().lock();
+        try {
+            Title title = titles.get(titleId);
+            return title != null && title.cancelHold(memberId);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    private boolean claimCopy(Title title, int memberId) {
+        Integer copyId;
+        while ((copyId = title.takeFreeCopy()) != null) {
+            if (borrowBook(memberId, copyId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    private void fillHolds(Title title) {
+        synchronized (title) {
+            Title.Hold hold;
+            while ((hold = title.nextHold()) != null) {
+                if (memberIndex.get(hold.memberId) != null && !claimCopy(title, hold.memberId)) {
+                    return;
+                }
+                title.fillHold(hold);
+            }
+        }
+    }
+    public void streamTitles(LineSink sink) {
+        catalogLock.readLock().lock();
+        try {
+            int[] ids = titles.keys();
+            Arrays.sort(ids);
+            for (int id : ids) {
+                sink.line(titles.get(id).toString());
+            }
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    void setForeignMembers(IntPredicate foreign) {
+        catalogLock.writeLock().lock();
+        try {
+            foreignMembers = foreign;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+    public void setLoanPeriod(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Loan period must be positive.");
+        }
+        this.loanPeriodMillis = millis;
+    }
+    public int restoreLoans(int[] bookIds, int[] memberIds, long[] checkouts, long[] dues) {
+        catalogLock.writeLock().lock();
+        try {
+            int restored = 0;
+            for (int i = 0; i < bookIds.length; i++) {
+                int bookId = bookIds[i];
+                int memberId = memberIds[i];
+                Member member = memberIndex.get(memberId);
+                Book book = lookupBook(bookId);
+                if ((member == null && !foreignMembers.test(memberId)) || book == null || borrowRecords.containsKey(bookId)) {
+                    continue;
+                }
+                long checkout = checkouts != null ? checkouts[i] : clock.getAsLong();
+                long due = dues != null ? dues[i] : checkout + loanPeriodMillis;
+                for (LibraryListener listener : listeners) {
+                    listener.bookBorrowed(memberId, bookId);
+                    listener.loanScheduled(memberId, bookId, checkout, due);
+                }
+                borrowRecords.putIfAbsent(bookId, memberId);
+                if (member != null) {
+                    member.borrowBook(book);
+                }
+                loansByMember.add(memberId, bookId);
+                Title title = titleOfCopy.get(bookId);
+                if (title != null) {
+                    title.claim(bookId);
+                }
+                loanDates.schedule(bookId, memberId, checkout, due);
+                restored++;
+            }
+            return restored;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public boolean restoreLoanDates(int memberId, int bookId, long checkoutMillis, long dueMillis) {
+        catalogLock.readLock().lock();
+        try {
+            ReentrantLock stripe = loanLocks.forKey(bookId);
+            stripe.lock();
+            try {
+                if (borrowRecords.get(bookId, memberId - 1) != memberId) {
+                    return false;
+                }
+                for (LibraryListener listener : listeners) {
+                    listener.loanScheduled(memberId, bookId, checkoutMillis, dueMillis);
+                }
+                loanDates.schedule(bookId, memberId, checkoutMillis, dueMillis);
+                return true;
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    public int renewLoans(int[] bookIds, long dueMillis) {
+        catalogLock.readLock().lock();
+        try {
+            int renewed = 0;
+            for (int bookId : bookIds) {
+                if (renewLocked(bookId, dueMillis)) {
+                    renewed++;
+                }
+            }
+            return renewed;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    public int renewMemberLoans(int memberId, long dueMillis) {
+        catalogLock.readLock().lock();
+        try {
+            Member member = memberIndex.get(memberId);
+            if (member == null) {
+                return 0;
+            }
+            int renewed = 0;
+            for (int bookId : member.getBorrowedBookIds()) {
+                if (renewLocked(bookId, dueMillis)) {
+                    renewed++;
+                }
+            }
+            return renewed;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    private boolean renewLocked(int bookId, long dueMillis) {
+        ReentrantLock stripe = loanLocks.forKey(bookId);
+        stripe.lock();
+        try {
+            return loanDates.renew(bookId, dueMillis, (id, memberId, checkoutMillis, due) -> {
+                for (LibraryListener listener : listeners) {
+                    listener.loanScheduled(memberId, id, checkoutMillis, due);
+                }
+            });
+        } finally {
+            stripe.unlock();
+        }
+    }
+    public boolean visitLoan(int bookId, LoanVisitor visitor) {
+        return loanDates.visit(bookId, visitor);
+    }
+    public int forEachOverdueLoan(long asOfMillis, LoanVisitor visitor) {
+        return loanDates.forEachOverdue(asOfMillis, visitor);
+    }
+    public int overdueLoanCount(long asOfMillis) {
+        return loanDates.forEachOverdue(asOfMillis, null);
+    }
+    public void streamOverdueLoans(long asOfMillis, LineSink sink) {
+        int count = loanDates.forEachOverdue(asOfMillis, (bookId, memberId, checkoutMillis, dueMillis) ->
+            sink.line("Book ID: " + bookId + ", Member ID: " + memberId + ", Due: " + new Date(dueMillis)));
+        sink.line(count + " loans overdue as of " + new Date(asOfMillis) + ".");
+    }
+    public void addListener(LibraryListener listener) {
+        listeners.add(listener);
+    }
+    public void addJournal(LibraryListener journal) {
+        listeners.add(0, journal);
+    }
+    public void attachListener(LibraryListener listener) {
+        BufferedListener backlog = new BufferedListener();
+        LibrarySnapshot snapshot;
+        Title[] titleList;
+        int[][] titleCopies;
+        catalogLock.writeLock().lock();
+        try {
+            snapshot = new LibrarySnapshot(snapshotVersion.incrementAndGet(), books.snapshot(), mountedCatalog,
+                mountedDeleted.copy(), members.snapshot(), borrowRecords.snapshot(), loansByMember.snapshot());
+            int[] titleIds = titles.keys();
+            titleList = new Title[titleIds.length];
+            titleCopies = new int[titleIds.length][];
+            for (int i = 0; i < titleIds.length; i++) {
+                titleList[i] = titles.get(titleIds[i]);
+                titleCopies[i] = titleList[i].copyIds.toArray();
+            }
+            listeners.add(backlog);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        try {
+            snapshot.forEachBook(listener::bookAdded);
+            snapshot.forEachMember(listener::memberAdded);
+            snapshot.forEachBorrowRecord((bookId, memberId) -> {
+                listener.bookBorrowed(memberId, bookId);
+                loanDates.visit(bookId, (id, holder, checkoutMillis, dueMillis) -> {
+                    if (holder == memberId) {
+                        listener.loanScheduled(holder, id, checkoutMillis, dueMillis);
+                    }
+                });
+            });
+            for (int i = 0; i < titleList.length; i++) {
+                listener.titleAdded(titleList[i], titleCopies[i]);
+            }
+            while (backlog.pending() > ATTACH_BACKLOG_LIMIT) {
+                backlog.drainTo(listener);
+            }
+        } catch (RuntimeException e) {
+            listeners.remove(backlog);
+            throw e;
+        }
+        catalogLock.writeLock().lock();
+        try {
+            backlog.drainTo(listener);
+            listeners.set(listeners.indexOf(backlog), listener);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public void removeListener(LibraryListener listener) {
+        listeners.remove(listener);
+    }
+    public LibraryState captureState(Runnable atomically) {
+        catalogLock.writeLock().lock();
+        try {
+            int[][] loans = borrowRecords.toArrays();
+            long[] checkouts = new long[loans[0].length];
+            long[] dues = new long[loans[0].length];
+            for (int i = 0; i < loans[0].length; i++) {
+                int slot = i;
+                loanDates.visit(loans[0][i], (bookId, memberId, checkoutMillis, dueMillis) -> {
+                    checkouts[slot] = checkoutMillis;
+                    dues[slot] = dueMillis;
+                });
+            }
+            int[] titleIds = titles.keys();
+            Title[] titleList = new Title[titleIds.length];
+            int[][] titleCopies = new int[titleIds.length][];
+            for (int i = 0; i < titleIds.length; i++) {
+                titleList[i] = titles.get(titleIds[i]);
+                titleCopies[i] = titleList[i].copyIds.toArray();
+            }
+            LibraryState state = new LibraryState(allBooksLocked().toArray(new Book[0]), members.toArray(new Member[0]), loans[0], loans[1], checkouts, dues,
+                titleList, titleCopies);
+            atomically.run();
+            return state;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public void runExclusive(Runnable batch) {
+        catalogLock.writeLock().lock();
+        try {
+            batch.run();
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public MetricsSnapshot metricsSnapshot() {
+        int bookTotal = bookCount();
+        int memberTotal;
+        catalogLock.readLock().lock();
+        try {
+            memberTotal = members.size();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+        return metrics.snapshot(bookTotal, memberTotal, borrowRecords.size());
+    }
+    public void setSorter(IdSorter sorter) {
+        this.sorter = sorter;
+    }
+    public void sortBooksById() {
+        long start = metrics.begin(LibraryMetrics.SORT_BOOKS);
+        catalogLock.writeLock().lock();
+        try {
+            sortById(books, Book::getId);
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.SORT_BOOKS, start);
+        }
+    }
+    public void sortMembersById() {
+        long start = metrics.begin(LibraryMetrics.SORT_MEMBERS);
+        catalogLock.writeLock().lock();
+        try {
+            sortById(members, Member::getMemberId);
+        } finally {
+            catalogLock.writeLock().unlock();
+            metrics.record(LibraryMetrics.SORT_MEMBERS, start);
+        }
+    }
+    @SuppressWarnings("unchecked")
+    private <T> void sortById(SegmentedList<T> list, ToIntFunction<T> idOf) {
+        Object[] original = list.toArray();
+        int n = original.length;
+        long[] keyed = new long[n];
+        for (int i = 0; i < n; i++) {
+            keyed[i] = IdSorter.pack(idOf.applyAsInt((T) original[i]), i);
+        }
+        IdSorter engine = sorter != null ? sorter : IdSorter.forSize(n);
+        engine.sort(keyed, 0, n);
+        Object[] ordered = new Object[n];
+        for (int i = 0; i < n; i++) {
+            ordered[i] = original[IdSorter.position(keyed[i])];
+        }
+        list.replaceAll(ordered);
+    }
+    public ArrayList<Book> getBooks() {
+        catalogLock.readLock().lock();
+        try {
+            return allBooksLocked();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    public ArrayList<Member> getMembers() {
+        catalogLock.readLock().lock();
+        try {
+            ArrayList<Member> result = new ArrayList<>(members.size());
+            members.forEach(result::add);
+            return result;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    private void remember(IdHistory history, int id) {
+        if (recordingHistory) {
+            history.append(id);
+        }
+    }
+    void setHistoryRecording(boolean recording) {
+        catalogLock.writeLock().lock();
+        try {
+            recordingHistory = recording;
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    public void spillHistoryTo(Path directory, long retainedEntries) throws IOException {
+        addedBookIds.spillTo(directory, retainedEntries);
+        addedMemberIds.spillTo(directory, retainedEntries);
+        removedBookIds.spillTo(directory, retainedEntries);
+        removedMemberIds.spillTo(directory, retainedEntries);
+    }
+    public void flushHistory() throws IOException {
+        addedBookIds.flush();
+        addedMemberIds.flush();
+        removedBookIds.flush();
+        removedMemberIds.flush();
+    }
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+    public IdHistory getAddedBookHistory() {
+        return addedBookIds;
+    }
+    public IdHistory getAddedMemberHistory() {
+        return addedMemberIds;
+    }
+    public IdHistory getRemovedBookHistory() {
+        return removedBookIds;
+    }
+    public IdHistory getRemovedMemberHistory() {
+        return removedMemberIds;
+    }
+    public String displayAddedBookIds() {
+        return "Added Book IDs: " + addedBookIds.describeLatest(HISTORY_DISPLAY_ENTRIES, true) + "\n";
+    }
+    public String displayAddedMemberIds() {
+        return "Added Member IDs: " + addedMemberIds.describeLatest(HISTORY_DISPLAY_ENTRIES, true) + "\n";
+    }
+    public String displayRemovedBookIds() {
+        return "Removed Book IDs: " + removedBookIds.describeLatest(HISTORY_DISPLAY_ENTRIES, false) + "\n";
+    }
+    public String displayRemovedMemberIds() {
+        return "Removed Member IDs: " + removedMemberIds.describeLatest(HISTORY_DISPLAY_ENTRIES, false) + "\n";
+    }
+   
+    public LibrarySnapshot snapshot() {
+        catalogLock.readLock().lock();
+        try {
+            return new LibrarySnapshot(snapshotVersion.incrementAndGet(), books.snapshot(), mountedCatalog,
+                mountedDeleted.copy(), members.snapshot(), borrowRecords.snapshot(), loansByMember.snapshot());
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    public void streamSortedBooks(LineSink sink) {
+        LibrarySnapshot snapshot = snapshot();
+        sink.line("Sorted Books List:");
+        snapshot.forEachBook(book -> sink.line(book.toString()));
+    }
+    public String displaySortedBooks() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedBooks(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+    public void streamSortedMembers(LineSink sink) {
+        LibrarySnapshot snapshot = snapshot();
+        sink.line("Sorted Members List:");
+        snapshot.forEachMember(member -> sink.line(member.toString()));
+    }
+    public String displaySortedMembers() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedMembers(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+
+    public int borrowRecordCount() {
+        return borrowRecords.size();
+    }
+    public void forEachBorrowRecord(IntPairConsumer action) {
+        borrowRecords.forEachOrdered(action);
+    }
+    public void forEachBorrowRecordInRange(int fromBookId, int toBookId, IntPairConsumer action) {
+        borrowRecords.forEachInRange(fromBookId, toBookId, action);
+    }
+    public ArrayList<Map.Entry<Integer, Integer>> sortBorrowRecords() {
+        LibrarySnapshot snapshot = snapshot();
+        ArrayList<Map.Entry<Integer, Integer>> sortedBorrowRecords = new ArrayList<>(snapshot.borrowRecordCount());
+        snapshot.forEachBorrowRecord((bookId, memberId) -> sortedBorrowRecords.add(new AbstractMap.SimpleImmutableEntry<>(bookId, memberId)));
+        return sortedBorrowRecords;
+    }
+    public void streamSortedBorrowRecords(LineSink sink) {
+        LibrarySnapshot snapshot = snapshot();
+        sink.line("Sorted Borrow Records (Book ID -> Member ID):");
+        snapshot.forEachBorrowRecord((bookId, memberId) -> sink.line("Book ID: " + bookId + ", Member ID: " + memberId));
+    }
+    public String displaySortedBorrowRecords() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedBorrowRecords(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+    public int[] getBookIdsHeldBy(int memberId) {
+        return loansByMember.heldBy(memberId);
+    }
+    public void forEachReturnRecord(IntPairConsumer action) {
+        loansByMember.forEachOrdered(action);
+    }
+    public ArrayList<Map.Entry<Integer, Integer>> sortReturnRecords() {
+        ArrayList<Map.Entry<Integer, Integer>> returnRecords = new ArrayList<>();
+        snapshot().forEachReturnRecord((memberId, bookId) -> returnRecords.add(new AbstractMap.SimpleImmutableEntry<>(memberId, bookId)));
+        return returnRecords;
+    }
+    public void streamSortedReturnRecords(LineSink sink) {
+        LibrarySnapshot snapshot = snapshot();
+        sink.line("Sorted Return Records (Member ID ===-> Book ID):");
+        snapshot.forEachReturnRecord((memberId, bookId) -> sink.line("Member ID: " + memberId + ", Book ID: " + bookId));
+    }
+    public String displaySortedReturnRecords() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedReturnRecords(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package lms;
+import java.util.*;
+class LibraryCommand {
+    static final int ADD_BOOK = 1;
+    static final int ADD_MEMBER = 2;
+    static final int DELETE_BOOK = 3;
+    static final int REMOVE_MEMBER = 4;
+    static final int BORROW = 5;
+    static final int RETURN = 6;
+    static final int FIND_BOOK = 7;
+    static final int FIND_MEMBER = 8;
+    static final int ADD_TITLE = 9;
+    static final int BORROW_TITLE = 10;
+    static final int CANCEL_HOLD = 11;
+    final int type;
+    final int first;
+    final int second;
+    final String text;
+    final String detail;
+    final int[] copies;
+    private LibraryCommand(int type, int first, int second, String text, String detail) {
+        this(type, first, second, text, detail, null);
+    }
+    private LibraryCommand(int type, int first, int second, String text, String detail, int[] copies) {
+        this.type = type;
+        this.first = first;
+        this.second = second;
+        this.text = text;
+        this.detail = detail;
+        this.copies = copies;
+    }
+    boolean changesCatalog() {
+        return type == ADD_BOOK || type == ADD_MEMBER || type == DELETE_BOOK || type == REMOVE_MEMBER || type == ADD_TITLE;
+    }
+    static LibraryCommand addBook(int id, String title, String author) {
+        return new LibraryCommand(ADD_BOOK, id, 0, title, author);
+    }
+    static LibraryCommand addMember(int id, String name) {
+        return new LibraryCommand(ADD_MEMBER, id, 0, name, null);
+    }
+    static LibraryCommand deleteBook(int id) {
+        return new LibraryCommand(DELETE_BOOK, id, 0, null, null);
+    }
+    static LibraryCommand removeMember(int id) {
+        return new LibraryCommand(REMOVE_MEMBER, id, 0, null, null);
+    }
+    static LibraryCommand borrow(int memberId, int bookId) {
+        return new LibraryCommand(BORROW, memberId, bookId, null, null);
+    }
+    static LibraryCommand giveBack(int memberId, int bookId) {
+        return new LibraryCommand(RETURN, memberId, bookId, null, null);
+    }
+    static LibraryCommand findBook(int id) {
+        return new LibraryCommand(FIND_BOOK, id, 0, null, null);
+    }
+    static LibraryCommand findMember(int id) {
+        return new LibraryCommand(FIND_MEMBER, id, 0, null, null);
+    }
+    static LibraryCommand addTitle(int titleId, String title, String author, int[] copyIds) {
+        return new LibraryCommand(ADD_TITLE, titleId, 0, title, author, copyIds);
+    }
+    static LibraryCommand borrowTitle(int memberId, int titleId) {
+        return new LibraryCommand(BORROW_TITLE, memberId, titleId, null, null);
+    }
+    static LibraryCommand cancelHold(int memberId, int titleId) {
+        return new LibraryCommand(CANCEL_HOLD, memberId, titleId, null, null);
+    }
+    static LibraryCommand parse(String line) {
+        String trimmed = line.trim();
+        boolean tabbed = trimmed.indexOf('\t') >= 0;
+        int end = tabbed ? trimmed.indexOf('\t') : trimmed.indexOf(' ');
+        String name = (end < 0 ? trimmed : trimmed.substring(0, end)).toUpperCase(Locale.ROOT);
+        int arity;
+        switch (name) {
+            case "ADD_TITLE":
+                arity = 5;
+                break;
+            case "ADD_BOOK":
+                arity = 4;
+                break;
+            case "ADD_MEMBER":
+            case "BORROW":
+            case "RETURN":
+            case "BORROW_TITLE":
+            case "CANCEL_HOLD":
+                arity = 3;
+                break;
+            case "DELETE_BOOK":
+            case "REMOVE_MEMBER":
+            case "FIND_BOOK":
+            case "FIND_MEMBER":
+                arity = 2;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + name);
+        }
+        String[] fields = tabbed ? trimmed.split("\t", -1) : trimmed.split(" +", arity);
+        if (fields.length != arity) {
+            throw new IllegalArgumentException(name + " expects " + (arity - 1) + " arguments.");
+        }
+        int id = parseId(fields[1]);
+        switch (name) {
+            case "ADD_BOOK":
+                return addBook(id, required(fields[2], "title"), required(fields[3], "author"));
+            case "ADD_MEMBER":
+                return addMember(id, required(fields[2], "name"));
+            case "DELETE_BOOK":
+                return deleteBook(id);
+            case "REMOVE_MEMBER":
+                return removeMember(id);
+            case "FIND_BOOK":
+                return findBook(id);
+            case "FIND_MEMBER":
+                return findMember(id);
+            case "BORROW":
+                return borrow(id, parseId(fields[2]));
+            case "ADD_TITLE":
+                String[] parts = required(fields[4], "copy IDs").split(",");
+                int[] copyIds = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    copyIds[i] = parseId(parts[i]);
+                }
+                return addTitle(id, required(fields[2], "title"), required(fields[3], "author"), copyIds);
+            case "BORROW_TITLE":
+                return borrowTitle(id, parseId(fields[2]));
+            case "CANCEL_HOLD":
+                return cancelHold(id, parseId(fields[2]));
+            default:
+                return giveBack(id, parseId(fields[2]));
+        }
+    }
+    private static int parseId(String field) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ID: " + field.trim());
+        }
+    }
+    private static String required(String field, String label) {
+        String value = field.trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + label + ".");
+        }
+        return value;
+    }
+}
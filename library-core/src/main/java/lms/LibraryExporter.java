@@ -0,0 +1,289 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+class LibraryExporter {
+    static final int CSV = 1;
+    static final int NDJSON = 2;
+    static final int BINARY = 3;
+    static final int BINARY_MAGIC = 0x4C424558;
+    static final int BINARY_VERSION = 1;
+    static final byte BOOKS = 1;
+    static final byte MEMBERS = 2;
+    static final byte BORROW_RECORDS = 3;
+    private final int bufferSize;
+    public LibraryExporter(int bufferSize) {
+        if (bufferSize < 32) {
+            throw new IllegalArgumentException("Export buffer must hold at least 32 bytes.");
+        }
+        this.bufferSize = bufferSize;
+    }
+    static int formatFor(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".bin")) {
+            return BINARY;
+        }
+        throw new IllegalArgumentException("Unknown export format for " + file.getFileName() + " (use .csv, .ndjson or .bin).");
+    }
+    public long exportBooks(LibrarySnapshot snapshot, Path file, boolean sorted) throws IOException {
+        int format = formatFor(file);
+        long[] written = new long[1];
+        Output out = new Output(bufferSize);
+        out.write(file, () -> {
+            if (format == CSV) {
+                out.ascii("id,title,author\n");
+            } else if (format == BINARY) {
+                out.header(BOOKS, snapshot.bookCount());
+            }
+            Consumer<Book> row = book -> {
+                if (format == CSV) {
+                    out.number(book.getId());
+                    out.put((byte) ',');
+                    out.csv(book.getTitle());
+                    out.put((byte) ',');
+                    out.csv(book.getAuthor());
+                    out.put((byte) '\n');
+                } else if (format == NDJSON) {
+                    out.ascii("{\"id\":");
+                    out.number(book.getId());
+                    out.ascii(",\"title\":");
+                    out.json(book.getTitle());
+                    out.ascii(",\"author\":");
+                    out.json(book.getAuthor());
+                    out.ascii("}\n");
+                } else {
+                    out.reserve(4).putInt(book.getId());
+                    out.binary(book.getTitle());
+                    out.binary(book.getAuthor());
+                }
+                written[0]++;
+            };
+            if (sorted) {
+                snapshot.forEachBookById(row);
+            } else {
+                snapshot.forEachBook(row);
+            }
+        });
+        return written[0];
+    }
+    public long exportMembers(LibrarySnapshot snapshot, Path file, boolean sorted) throws IOException {
+        int format = formatFor(file);
+        long[] written = new long[1];
+        Output out = new Output(bufferSize);
+        out.write(file, () -> {
+            if (format == CSV) {
+                out.ascii("id,name\n");
+            } else if (format == BINARY) {
+                out.header(MEMBERS, snapshot.memberCount());
+            }
+            Consumer<Member> row = member -> {
+                if (format == CSV) {
+                    out.number(member.getMemberId());
+                    out.put((byte) ',');
+                    out.csv(member.getMemberName());
+                    out.put((byte) '\n');
+                } else if (format == NDJSON) {
+                    out.ascii("{\"id\":");
+                    out.number(member.getMemberId());
+                    out.ascii(",\"name\":");
+                    out.json(member.getMemberName());
+                    out.ascii("}\n");
+                } else {
+                    out.reserve(4).putInt(member.getMemberId());
+                    out.binary(member.getMemberName());
+                }
+                written[0]++;
+            };
+            if (sorted) {
+                snapshot.forEachMemberById(row);
+            } else {
+                snapshot.forEachMember(row);
+            }
+        });
+        return written[0];
+    }
+    public long exportBorrowRecords(LibrarySnapshot snapshot, Path file) throws IOException {
+        int format = formatFor(file);
+        long[] written = new long[1];
+        Output out = new Output(bufferSize);
+        out.write(file, () -> {
+            if (format == CSV) {
+                out.ascii("bookId,memberId\n");
+            } else if (format == BINARY) {
+                out.header(BORROW_RECORDS, snapshot.borrowRecordCount());
+            }
+            snapshot.forEachBorrowRecord((bookId, memberId) -> {
+                if (format == CSV) {
+                    out.number(bookId);
+                    out.put((byte) ',');
+                    out.number(memberId);
+                    out.put((byte) '\n');
+                } else if (format == NDJSON) {
+                    out.ascii("{\"bookId\":");
+                    out.number(bookId);
+                    out.ascii(",\"memberId\":");
+                    out.number(memberId);
+                    out.ascii("}\n");
+                } else {
+                    out.reserve(8).putInt(bookId).putInt(memberId);
+                }
+                written[0]++;
+            });
+        });
+        return written[0];
+    }
+    private static final class Output {
+        private final ByteBuffer buffer;
+        private final byte[] digits = new byte[11];
+        private FileChannel channel;
+        Output(int bufferSize) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        private void write(Path file, Runnable body) throws IOException {
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+            buffer.clear();
+            try {
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    channel = out;
+                    body.run();
+                    drain();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } finally {
+                    channel = null;
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        private void drain() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+        private ByteBuffer reserve(int bytes) {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+            return buffer;
+        }
+        private void put(byte b) {
+            reserve(1).put(b);
+        }
+        private void header(byte kind, long count) {
+            reserve(17).putInt(BINARY_MAGIC).putInt(BINARY_VERSION).put(kind).putLong(count);
+        }
+        private void ascii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                put((byte) text.charAt(i));
+            }
+        }
+        private void number(int value) {
+            long v = value;
+            ByteBuffer b = reserve(11);
+            if (v < 0) {
+                b.put((byte) '-');
+                v = -v;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            while (n > 0) {
+                b.put(digits[--n]);
+            }
+        }
+        private static boolean isAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        private void csv(String text) {
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r' || (i == 0 && c == ' ');
+            }
+            if (quote) {
+                put((byte) '"');
+            }
+            if (isAscii(text)) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '"') {
+                        put((byte) '"');
+                    }
+                    put((byte) c);
+                }
+            } else {
+                for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+                    if (b == '"') {
+                        put((byte) '"');
+                    }
+                    put(b);
+                }
+            }
+            if (quote) {
+                put((byte) '"');
+            }
+        }
+        private void json(String text) {
+            put((byte) '"');
+            byte[] bytes = isAscii(text) ? null : text.getBytes(StandardCharsets.UTF_8);
+            int length = bytes == null ? text.length() : bytes.length;
+            for (int i = 0; i < length; i++) {
+                int c = bytes == null ? text.charAt(i) : bytes[i] & 0xFF;
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c == '\n') {
+                    ascii("\\n");
+                } else if (c == '\r') {
+                    ascii("\\r");
+                } else if (c == '\t') {
+                    ascii("\\t");
+                } else if (c < 0x20) {
+                    ascii(String.format("\\u%04x", c));
+                } else {
+                    put((byte) c);
+                }
+            }
+            put((byte) '"');
+        }
+        private void binary(String text) {
+            if (isAscii(text)) {
+                reserve(4).putInt(text.length());
+                for (int i = 0; i < text.length(); i++) {
+                    put((byte) text.charAt(i));
+                }
+            } else {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                reserve(4).putInt(bytes.length);
+                for (byte b : bytes) {
+                    put(b);
+                }
+            }
+        }
+    }
+}
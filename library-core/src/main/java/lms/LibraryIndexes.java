@@ -0,0 +1,126 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.locks.*;
+class LibraryIndexes implements LibraryListener {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StringDictionary dictionary;
+    private final IntHashMap<IntHashSet> booksByAuthor = new IntHashMap<>();
+    private final CountingHeap authorBookCounts = new CountingHeap();
+    private final CountingHeap memberLoanCounts = new CountingHeap();
+    public LibraryIndexes(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            int author = book.getAuthorCode();
+            IntHashSet ids = booksByAuthor.get(author);
+            if (ids == null) {
+                ids = new IntHashSet(4);
+                booksByAuthor.put(author, ids);
+            }
+            if (ids.add(book.getId())) {
+                authorBookCounts.add(author, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void bookDeleted(Book book) {
+        lock.writeLock().lock();
+        try {
+            int author = book.getAuthorCode();
+            IntHashSet ids = booksByAuthor.get(author);
+            if (ids != null && ids.remove(book.getId())) {
+                authorBookCounts.add(author, -1);
+                if (ids.isEmpty()) {
+                    booksByAuthor.remove(author);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void bookBorrowed(int memberId, int bookId) {
+        lock.writeLock().lock();
+        try {
+            memberLoanCounts.add(memberId, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void bookReturned(int memberId, int bookId) {
+        lock.writeLock().lock();
+        try {
+            memberLoanCounts.add(memberId, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public int[] booksByAuthor(String author) {
+        int code = dictionary.codeOf(author);
+        lock.readLock().lock();
+        try {
+            IntHashSet ids = code == StringDictionary.NULL ? null : booksByAuthor.get(code);
+            if (ids == null) {
+                return new int[0];
+            }
+            int[] result = ids.toArray();
+            Arrays.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public int authorBookCount(String author) {
+        int code = dictionary.codeOf(author);
+        lock.readLock().lock();
+        try {
+            return code == StringDictionary.NULL ? 0 : authorBookCounts.count(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public int loanCount(int memberId) {
+        lock.readLock().lock();
+        try {
+            return memberLoanCounts.count(memberId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public void topBorrowers(int k, IntPairConsumer action) {
+        lock.readLock().lock();
+        try {
+            memberLoanCounts.top(k, action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public void topAuthors(int k, IntPairConsumer action) {
+        lock.readLock().lock();
+        try {
+            authorBookCounts.top(k, action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public void streamBooksByAuthor(Library library, String author, LineSink sink) {
+        int[] ids = booksByAuthor(author);
+        sink.line(ids.length + " books by " + author + ":");
+        for (int id : ids) {
+            Book book = library.findBookById(id);
+            if (book != null) {
+                sink.line(book.toString());
+            }
+        }
+    }
+    public void streamTopBorrowers(int k, LineSink sink) {
+        sink.line("Top " + k + " Borrowers (Member ID -> Loans):");
+        topBorrowers(k, (memberId, loans) -> sink.line("Member ID: " + memberId + ", Loans: " + loans));
+    }
+    public void streamTopAuthors(int k, LineSink sink) {
+        sink.line("Top " + k + " Authors (Author -> Books):");
+        topAuthors(k, (author, books) -> sink.line("Author: " + dictionary.get(author) + ", Books: " + books));
+    }
+}
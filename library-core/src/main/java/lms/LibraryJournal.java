@@ -0,0 +1,248 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+class LibraryJournal implements LibraryListener, Closeable {
+    static final byte ADD_BOOK = 1;
+    static final byte ADD_MEMBER = 2;
+    static final byte DELETE_BOOK = 3;
+    static final byte REMOVE_MEMBER = 4;
+    static final byte BORROW = 5;
+    static final byte RETURN = 6;
+    static final byte LOAN_DATES = 7;
+    static final byte ADD_TITLE = 8;
+    private final Object ioLock = new Object();
+    private final long commitIntervalMillis;
+    private final Thread flusher;
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private long appended;
+    private long durable;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    public LibraryJournal(Path file, long commitIntervalMillis) throws IOException {
+        this.channel = openForAppend(file);
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.flusher = new Thread(this::runFlusher, "library-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+    private static FileChannel openForAppend(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    public void bookAdded(Book book) {
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] author = book.getAuthor().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            ByteBuffer b = reserve(1 + 4 + 4 + title.length + 4 + author.length);
+            b.put(ADD_BOOK).putInt(book.getId());
+            b.putInt(title.length).put(title);
+            b.putInt(author.length).put(author);
+            appended();
+        }
+    }
+    public void memberAdded(Member member) {
+        byte[] name = member.getMemberName().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            ByteBuffer b = reserve(1 + 4 + 4 + name.length);
+            b.put(ADD_MEMBER).putInt(member.getMemberId());
+            b.putInt(name.length).put(name);
+            appended();
+        }
+    }
+    public void bookDeleted(Book book) {
+        appendIds(DELETE_BOOK, book.getId(), 0);
+    }
+    public void memberRemoved(int memberId) {
+        appendIds(REMOVE_MEMBER, memberId, 0);
+    }
+    public void bookBorrowed(int memberId, int bookId) {
+        appendIds(BORROW, memberId, bookId);
+    }
+    public void bookReturned(int memberId, int bookId) {
+        appendIds(RETURN, memberId, bookId);
+    }
+    public void titleAdded(Title title, int[] copyIds) {
+        byte[] text = title.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] author = title.getAuthor().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            ByteBuffer b = reserve(1 + 4 + 4 + text.length + 4 + author.length + 4 + 4 * copyIds.length);
+            b.put(ADD_TITLE).putInt(title.getTitleId());
+            b.putInt(text.length).put(text);
+            b.putInt(author.length).put(author);
+            b.putInt(copyIds.length);
+            for (int copyId : copyIds) {
+                b.putInt(copyId);
+            }
+            appended();
+        }
+    }
+    public synchronized void loanScheduled(int memberId, int bookId, long checkoutMillis, long dueMillis) {
+        reserve(25).put(LOAN_DATES).putInt(memberId).putInt(bookId).putLong(checkoutMillis).putLong(dueMillis);
+        appended();
+    }
+    private synchronized void appendIds(byte type, int first, int second) {
+        reserve(9).put(type).putInt(first).putInt(second);
+        appended();
+    }
+    private ByteBuffer reserve(int bytes) {
+        IOException error = failure;
+        if (error != null) {
+            throw new UncheckedIOException("Journal write failed.", error);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        return pending;
+    }
+    private void appended() {
+        appended++;
+        if (pending.position() >= 32 * 1024) {
+            notifyAll();
+        }
+    }
+    private void runFlusher() {
+        while (!closed) {
+            try {
+                synchronized (this) {
+                    if (pending.position() == 0) {
+                        wait(commitIntervalMillis);
+                    }
+                }
+                commit();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                failure = e;
+                return;
+            }
+        }
+    }
+    private void commit() throws IOException {
+        synchronized (ioLock) {
+            long batchEnd;
+            synchronized (this) {
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                pending.clear();
+                batchEnd = appended;
+            }
+            writing.flip();
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            writing.clear();
+            channel.force(false);
+            synchronized (this) {
+                durable = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        commit();
+        synchronized (this) {
+            while (durable < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    public void rotate(Path file) throws IOException {
+        synchronized (ioLock) {
+            commit();
+            channel.close();
+            channel = openForAppend(file);
+        }
+    }
+    public void close() throws IOException {
+        sync();
+        closed = true;
+        flusher.interrupt();
+        synchronized (ioLock) {
+            channel.close();
+        }
+    }
+    public static long replay(Path file, Library library) throws IOException {
+        long valid = 0;
+        long records = 0;
+        try (BinaryReader in = new BinaryReader(FileChannel.open(file, StandardOpenOption.READ), 1 << 20)) {
+            while (in.available(1)) {
+                try {
+                    int type = in.getByte();
+                    int id = in.getInt();
+                    switch (type) {
+                        case ADD_BOOK:
+                            library.addBook(new Book(id, in.getString(), in.getString()));
+                            break;
+                        case ADD_MEMBER:
+                            library.addMember(new Member(id, in.getString()));
+                            break;
+                        case DELETE_BOOK:
+                            in.getInt();
+                            library.deleteBookById(id);
+                            break;
+                        case REMOVE_MEMBER:
+                            in.getInt();
+                            library.removeMemberById(id);
+                            break;
+                        case BORROW:
+                            library.borrowBook(id, in.getInt());
+                            break;
+                        case RETURN:
+                            library.returnBook(id, in.getInt());
+                            break;
+                        case LOAN_DATES:
+                            library.restoreLoanDates(id, in.getInt(), in.getLong(), in.getLong());
+                            break;
+                        case ADD_TITLE:
+                            String text = in.getString();
+                            String author = in.getString();
+                            int[] copyIds = new int[in.getInt()];
+                            for (int i = 0; i < copyIds.length; i++) {
+                                copyIds[i] = in.getInt();
+                            }
+                            library.restoreTitle(id, text, author, copyIds);
+                            break;
+                        default:
+                            throw new IOException("Unknown journal record type " + type + " in " + file);
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                valid = in.position();
+                records++;
+            }
+        }
+        if (Files.size(file) > valid) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ch.truncate(valid);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,19 @@
+package lms;
+interface LibraryListener {
+    default void bookAdded(Book book) {
+    }
+    default void memberAdded(Member member) {
+    }
+    default void bookDeleted(Book book) {
+    }
+    default void memberRemoved(int memberId) {
+    }
+    default void bookBorrowed(int memberId, int bookId) {
+    }
+    default void bookReturned(int memberId, int bookId) {
+    }
+    default void loanScheduled(int memberId, int bookId, long checkoutMillis, long dueMillis) {
+    }
+    default void titleAdded(Title title, int[] copyIds) {
+    }
+}
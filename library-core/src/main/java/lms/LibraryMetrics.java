@@ -0,0 +1,65 @@
+package lms;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+class LibraryMetrics {
+    static final int ADD_BOOK = 0;
+    static final int ADD_BOOKS = 1;
+    static final int ADD_MEMBER = 2;
+    static final int ADD_MEMBERS = 3;
+    static final int DELETE_BOOK = 4;
+    static final int REMOVE_MEMBER = 5;
+    static final int FIND_BOOK = 6;
+    static final int FIND_MEMBER = 7;
+    static final int BORROW = 8;
+    static final int RETURN = 9;
+    static final int SORT_BOOKS = 10;
+    static final int SORT_MEMBERS = 11;
+    static final String[] NAMES = {
+        "addBook", "addBooks", "addMember", "addMembers", "deleteBookById", "removeMemberById",
+        "findBookById", "findMemberById", "borrowBook", "returnBook", "sortBooksById", "sortMembersById"
+    };
+    static final long NOT_SAMPLED = Long.MIN_VALUE;
+    private static final int HOT_SAMPLE_MASK = 7;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[NAMES.length];
+    private final LongAdder[] calls = new LongAdder[NAMES.length];
+    private final LongAdder[] failures = new LongAdder[NAMES.length];
+    private final int[] sampleMask = new int[NAMES.length];
+    public LibraryMetrics() {
+        for (int i = 0; i < NAMES.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            calls[i] = new LongAdder();
+            failures[i] = new LongAdder();
+        }
+        for (int hot : new int[] {ADD_BOOK, ADD_MEMBER, FIND_BOOK, FIND_MEMBER, BORROW, RETURN}) {
+            sampleMask[hot] = HOT_SAMPLE_MASK;
+        }
+    }
+    public long begin(int operation) {
+        int mask = sampleMask[operation];
+        if (mask != 0 && (ThreadLocalRandom.current().nextInt() & mask) != 0) {
+            return NOT_SAMPLED;
+        }
+        long now = System.nanoTime();
+        return now == NOT_SAMPLED ? now + 1 : now;
+    }
+    public void record(int operation, long startNanos) {
+        calls[operation].increment();
+        if (startNanos != NOT_SAMPLED) {
+            latencies[operation].record(System.nanoTime() - startNanos);
+        }
+    }
+    public void failed(int operation) {
+        failures[operation].increment();
+    }
+    public MetricsSnapshot snapshot(int books, int members, int borrowRecords) {
+        LatencyHistogram.Snapshot[] histograms = new LatencyHistogram.Snapshot[NAMES.length];
+        long[] called = new long[NAMES.length];
+        long[] failed = new long[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            histograms[i] = latencies[i].snapshot();
+            called[i] = calls[i].sum();
+            failed[i] = failures[i].sum();
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), histograms, called, failed, books, members, borrowRecords);
+    }
+}
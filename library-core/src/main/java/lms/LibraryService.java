@@ -0,0 +1,185 @@
+package lms;
+import java.io.*;
+import java.util.*;
+class LibraryService {
+    private final Library library;
+    private final LibraryStore store;
+    public LibraryService(Library library, LibraryStore store) {
+        this.library = library;
+        this.store = store;
+    }
+    public String[] executeLines(List<String> lines) throws IOException {
+        TextReplies replies = new TextReplies(lines.size());
+        executeLines(lines, replies);
+        return replies.results.toArray(new String[0]);
+    }
+    public void executeLines(List<String> lines, CommandReplies replies) throws IOException {
+        int n = lines.size();
+        LibraryCommand[] commands = new LibraryCommand[n];
+        String[] errors = new String[n];
+        for (int i = 0; i < n; i++) {
+            try {
+                commands[i] = LibraryCommand.parse(lines.get(i));
+            } catch (RuntimeException e) {
+                errors[i] = messageOf(e);
+            }
+        }
+        execute(commands, errors, replies);
+    }
+    public String[] execute(LibraryCommand[] commands) throws IOException {
+        TextReplies replies = new TextReplies(commands.length);
+        execute(commands, new String[commands.length], replies);
+        return replies.results.toArray(new String[0]);
+    }
+    public void execute(LibraryCommand[] commands, String[] errors, CommandReplies replies) throws IOException {
+        boolean[] changed = new boolean[1];
+        Runnable batch = () -> {
+            for (int i = 0; i < commands.length; i++) {
+                if (commands[i] == null) {
+                    replies.error(errors[i]);
+                    continue;
+                }
+                try {
+                    changed[0] |= apply(commands[i], replies);
+                } catch (RuntimeException e) {
+                    replies.error(messageOf(e));
+                }
+            }
+        };
+        if (changesCatalog(commands)) {
+            library.runExclusive(batch);
+        } else {
+            batch.run();
+        }
+        if (changed[0] && store != null) {
+            store.sync();
+        }
+    }
+    private static String messageOf(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+    private static boolean changesCatalog(LibraryCommand[] commands) {
+        for (LibraryCommand command : commands) {
+            if (command != null && command.changesCatalog()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    private boolean apply(LibraryCommand command, CommandReplies replies) {
+        boolean applied;
+        switch (command.type) {
+            case LibraryCommand.ADD_BOOK:
+                library.addBook(new Book(command.first, command.text, command.detail));
+                applied = true;
+                break;
+            case LibraryCommand.ADD_MEMBER:
+                library.addMember(new Member(command.first, command.text));
+                applied = true;
+                break;
+            case LibraryCommand.DELETE_BOOK:
+                applied = library.deleteBookById(command.first);
+                break;
+            case LibraryCommand.REMOVE_MEMBER:
+                applied = library.removeMemberById(command.first);
+                break;
+            case LibraryCommand.BORROW:
+                applied = library.borrowBook(command.first, command.second);
+                break;
+            case LibraryCommand.RETURN:
+                applied = library.returnBook(command.first, command.second);
+                break;
+            case LibraryCommand.ADD_TITLE:
+                library.addTitle(command.first, command.text, command.detail, command.copies);
+                applied = true;
+                break;
+            case LibraryCommand.BORROW_TITLE:
+                int outcome = library.borrowTitle(command.first, command.second);
+                if (outcome == Title.HELD) {
+                    replies.held();
+                    return false;
+                }
+                applied = outcome == Title.LENT;
+                break;
+            case LibraryCommand.CANCEL_HOLD:
+                applied = library.cancelHold(command.first, command.second);
+                break;
+            case LibraryCommand.FIND_BOOK:
+                Book book = library.findBookById(command.first);
+                if (book == null) {
+                    replies.refused();
+                } else {
+                    replies.book(book);
+                }
+                return false;
+            case LibraryCommand.FIND_MEMBER:
+                Member member = library.findMemberById(command.first);
+                if (member == null) {
+                    replies.refused();
+                } else {
+                    replies.member(member);
+                }
+                return false;
+            default:
+                throw new IllegalArgumentException("Unknown command type: " + command.type);
+        }
+        if (applied) {
+            replies.ok();
+        } else {
+            replies.refused();
+        }
+        return applied;
+    }
+    public long serve(BufferedReader in, Writer out, int maxBatch) throws IOException {
+        ArrayList<String> batch = new ArrayList<>(maxBatch);
+        long served = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                batch.add(line);
+            }
+            if (batch.size() >= maxBatch || (!in.ready() && !batch.isEmpty())) {
+                served += flush(batch, out);
+            }
+        }
+        served += flush(batch, out);
+        return served;
+    }
+    private int flush(ArrayList<String> batch, Writer out) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (String result : executeLines(batch)) {
+            out.write(result);
+            out.write('\n');
+        }
+        out.flush();
+        int n = batch.size();
+        batch.clear();
+        return n;
+    }
+    private static final class TextReplies implements CommandReplies {
+        final ArrayList<String> results;
+        TextReplies(int expected) {
+            results = new ArrayList<>(expected);
+        }
+        public void ok() {
+            results.add("OK");
+        }
+        public void refused() {
+            results.add("NO");
+        }
+        public void held() {
+            results.add("HELD");
+        }
+        public void error(String message) {
+            results.add("ERR " + message);
+        }
+        public void book(Book book) {
+            results.add("OK " + book.getId() + "\t" + book.getTitle() + "\t" + book.getAuthor());
+        }
+        public void member(Member member) {
+            results.add("OK " + member.getMemberId() + "\t" + member.getMemberName() + "\t" + member.borrowedCount());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package lms;
+import java.util.function.*;
+class LibrarySnapshot {
+    private final long version;
+    private final SegmentedList.View<Book> books;
+    private final MappedCatalog catalog;
+    private final IntHashSet deleted;
+    private final SegmentedList.View<Member> members;
+    private final BorrowLedger.View loans;
+    private final MemberLoanIndex.View loansByMember;
+    LibrarySnapshot(long version, SegmentedList.View<Book> books, MappedCatalog catalog, IntHashSet deleted,
+            SegmentedList.View<Member> members, BorrowLedger.View loans, MemberLoanIndex.View loansByMember) {
+        this.version = version;
+        this.books = books;
+        this.catalog = catalog;
+        this.deleted = deleted;
+        this.members = members;
+        this.loans = loans;
+        this.loansByMember = loansByMember;
+    }
+    public long version() {
+        return version;
+    }
+    public int bookCount() {
+        return books.size() + (catalog == null ? 0 : catalog.size() - deleted.size());
+    }
+    public int memberCount() {
+        return members.size();
+    }
+    public int borrowRecordCount() {
+        return loans.size();
+    }
+    public void forEachBook(Consumer<Book> action) {
+        for (Book book : books) {
+            action.accept(book);
+        }
+        Library.forEachMapped(catalog, deleted, action);
+    }
+    public void forEachMember(Consumer<Member> action) {
+        for (Member member : members) {
+            action.accept(member);
+        }
+    }
+    public void forEachBookById(Consumer<Book> action) {
+        int heap = books.size();
+        long[] keyed = new long[bookCount()];
+        int n = 0;
+        for (int i = 0; i < heap; i++) {
+            keyed[n++] = IdSorter.pack(books.get(i).getId(), i);
+        }
+        if (catalog != null) {
+            for (int row = 0; row < catalog.size(); row++) {
+                int id = catalog.idAt(row);
+                if (deleted.isEmpty() || !deleted.contains(id)) {
+                    keyed[n++] = IdSorter.pack(id, heap + row);
+                }
+            }
+        }
+        IdSorter.forSize(n).sort(keyed, 0, n);
+        MappedBook view = catalog == null ? null : catalog.cursor();
+        for (int i = 0; i < n; i++) {
+            int position = IdSorter.position(keyed[i]);
+            if (position < heap) {
+                action.accept(books.get(position));
+            } else {
+                view.moveTo(position - heap);
+                action.accept(view);
+            }
+        }
+    }
+    public void forEachMemberById(Consumer<Member> action) {
+        int n = members.size();
+        long[] keyed = new long[n];
+        for (int i = 0; i < n; i++) {
+            keyed[i] = IdSorter.pack(members.get(i).getMemberId(), i);
+        }
+        IdSorter.forSize(n).sort(keyed, 0, n);
+        for (int i = 0; i < n; i++) {
+            action.accept(members.get(IdSorter.position(keyed[i])));
+        }
+    }
+    public void forEachBorrowRecord(IntPairConsumer action) {
+        loans.forEachOrdered(action);
+    }
+    public void forEachBorrowRecordInRange(int fromBookId, int toBookId, IntPairConsumer action) {
+        loans.forEachInRange(fromBookId, toBookId, action);
+    }
+    public void forEachReturnRecord(IntPairConsumer action) {
+        loansByMember.forEachOrdered(action);
+    }
+}
@@ -0,0 +1,22 @@
+package lms;
+class LibraryState {
+    final Book[] books;
+    final Member[] members;
+    final int[] loanBookIds;
+    final int[] loanMemberIds;
+    final long[] loanCheckouts;
+    final long[] loanDues;
+    final Title[] titles;
+    final int[][] titleCopies;
+    LibraryState(Book[] books, Member[] members, int[] loanBookIds, int[] loanMemberIds, long[] loanCheckouts, long[] loanDues,
+            Title[] titles, int[][] titleCopies) {
+        this.books = books;
+        this.members = members;
+        this.loanBookIds = loanBookIds;
+        this.loanMemberIds = loanMemberIds;
+        this.loanCheckouts = loanCheckouts;
+        this.loanDues = loanDues;
+        this.titles = titles;
+        this.titleCopies = titleCopies;
+    }
+}
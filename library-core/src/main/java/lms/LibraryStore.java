@@ -0,0 +1,282 @@
+package lms;
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+class LibraryStore implements Closeable {
+    private static final int SNAPSHOT_MAGIC = 0x4C494253;
+    private static final int SNAPSHOT_VERSION = 4;
+    private final Path directory;
+    private final ScheduledExecutorService checkpointer;
+    private Library library;
+    private LibraryJournal journal;
+    private long generation;
+    private MappedCatalog mountedImage;
+    private Path mountedImageFile;
+    private Consumer<Exception> checkpointFailureHandler;
+    private Exception checkpointFailure;
+    public LibraryStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "library-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    private Path snapshotFile(long gen) {
+        return directory.resolve("snapshot-" + gen + ".bin");
+    }
+    private Path journalFile(long gen) {
+        return directory.resolve("journal-" + gen + ".bin");
+    }
+    private Path imageFile(long gen) {
+        return directory.resolve("catalog-" + gen + ".bin");
+    }
+    private ArrayList<Long> generations(String prefix) throws IOException {
+        ArrayList<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "-*.bin")) {
+            for (Path file : files) {
+                String digits = file.getFileName().toString();
+                digits = digits.substring(prefix.length() + 1, digits.length() - 4);
+                if (isGeneration(digits)) {
+                    result.add(Long.parseLong(digits));
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+    private static boolean isGeneration(String digits) {
+        if (digits.isEmpty() || digits.length() > 18) {
+            return false;
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            if (digits.charAt(i) < '0' || digits.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    public synchronized String attach(Library library, long checkpointIntervalMillis) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<Long> snapshots = generations("snapshot");
+        generation = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        int loaded = snapshots.isEmpty() ? 0 : loadSnapshot(snapshotFile(generation), library);
+        long snapshotDone = System.nanoTime();
+        long replayed = 0;
+        long last = generation;
+        library.setHistoryRecording(false);
+        try {
+            for (long gen : generations("journal")) {
+                if (gen >= generation) {
+                    replayed += LibraryJournal.replay(journalFile(gen), library);
+                    last = gen;
+                }
+            }
+        } finally {
+            library.setHistoryRecording(true);
+        }
+        generation = last;
+        this.library = library;
+        journal = new LibraryJournal(journalFile(generation), 5);
+        library.addJournal(journal);
+        if (checkpointIntervalMillis > 0) {
+            checkpointer.scheduleWithFixedDelay(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException | RuntimeException e) {
+                    checkpointFailed(e);
+                }
+            }, checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        long end = System.nanoTime();
+        return "Recovered " + loaded + " snapshot records"
+            + (mountedImage == null ? "" : " and a " + mountedImage.size() + "-book catalog image")
+            + " and " + replayed + " journal records in " + (end - start) / 1000000 + " ms (snapshot "
+            + (snapshotDone - start) / 1000000 + " ms, journal " + (end - snapshotDone) / 1000000 + " ms).";
+    }
+    public void setCheckpointFailureHandler(Consumer<Exception> handler) {
+        Exception missed;
+        synchronized (this) {
+            checkpointFailureHandler = handler;
+            missed = checkpointFailure;
+            checkpointFailure = null;
+        }
+        if (missed != null) {
+            handler.accept(missed);
+        }
+    }
+    private void checkpointFailed(Exception e) {
+        Consumer<Exception> handler;
+        synchronized (this) {
+            handler = checkpointFailureHandler;
+            if (handler == null) {
+                checkpointFailure = e;
+                return;
+            }
+        }
+        handler.accept(e);
+    }
+    public synchronized void checkpoint() throws IOException {
+        if (library == null) {
+            throw new IllegalStateException("Store is not attached to a library.");
+        }
+        long next = generation + 1;
+        IOException[] rotateFailure = new IOException[1];
+        LibraryState state = library.captureState(() -> {
+            try {
+                journal.rotate(journalFile(next));
+            } catch (IOException e) {
+                rotateFailure[0] = e;
+            }
+        });
+        if (rotateFailure[0] != null) {
+            throw rotateFailure[0];
+        }
+        Path image = directory.resolve("catalog-" + next + ".tmp");
+        MappedCatalog.write(image, Arrays.asList(state.books));
+        Files.move(image, imageFile(next), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Path temp = directory.resolve("snapshot-" + next + ".tmp");
+        writeSnapshot(temp, state, imageFile(next).getFileName().toString());
+        Files.move(temp, snapshotFile(next), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        generation = next;
+        library.getDictionary().compact();
+        for (long gen : generations("snapshot")) {
+            if (gen < next) {
+                Files.deleteIfExists(snapshotFile(gen));
+            }
+        }
+        for (long gen : generations("catalog")) {
+            if (gen < next && !imageFile(gen).equals(mountedImageFile)) {
+                Files.deleteIfExists(imageFile(gen));
+            }
+        }
+        for (long gen : generations("journal")) {
+            if (gen < next) {
+                Files.deleteIfExists(journalFile(gen));
+            }
+        }
+    }
+    public void sync() throws IOException {
+        LibraryJournal current;
+        synchronized (this) {
+            current = journal;
+        }
+        if (current != null) {
+            current.sync();
+        }
+    }
+    private void writeSnapshot(Path file, LibraryState state, String image) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (BinaryWriter out = new BinaryWriter(channel, 1 << 20)) {
+            out.putInt(SNAPSHOT_MAGIC);
+            out.putInt(SNAPSHOT_VERSION);
+            out.putString(image);
+            out.putInt(state.books.length);
+            out.putInt(state.members.length);
+            for (Member member : state.members) {
+                out.putInt(member.getMemberId());
+                out.putString(member.getMemberName());
+            }
+            out.putInt(state.loanBookIds.length);
+            for (int i = 0; i < state.loanBookIds.length; i++) {
+                out.putInt(state.loanBookIds[i]);
+                out.putInt(state.loanMemberIds[i]);
+                out.putLong(state.loanCheckouts[i]);
+                out.putLong(state.loanDues[i]);
+            }
+            out.putInt(state.titles.length);
+            for (int i = 0; i < state.titles.length; i++) {
+                out.putInt(state.titles[i].getTitleId());
+                out.putString(state.titles[i].getTitle());
+                out.putString(state.titles[i].getAuthor());
+                out.putInt(state.titleCopies[i].length);
+                for (int copyId : state.titleCopies[i]) {
+                    out.putInt(copyId);
+                }
+            }
+        }
+    }
+    private int loadSnapshot(Path file, Library library) throws IOException {
+        try (BinaryReader in = new BinaryReader(FileChannel.open(file, StandardOpenOption.READ), 1 << 20)) {
+            int version = in.getInt() == SNAPSHOT_MAGIC ? in.getInt() : -1;
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Unrecognized snapshot format in " + file);
+            }
+            String image = version >= 4 ? in.getString() : "";
+            int bookCount = in.getInt();
+            if (!image.isEmpty()) {
+                Path imagePath = directory.resolve(image);
+                MappedCatalog catalog = MappedCatalog.open(imagePath);
+                if (catalog.size() != bookCount) {
+                    catalog.close();
+                    throw new IOException("Catalog image " + image + " holds " + catalog.size() + " books, snapshot expects " + bookCount);
+                }
+                library.mountCatalog(catalog);
+                mountedImage = catalog;
+                mountedImageFile = imagePath;
+            } else {
+                for (int i = 0; i < bookCount; i++) {
+                    library.addBook(new Book(in.getInt(), in.getString(), in.getString()));
+                }
+            }
+            int memberCount = in.getInt();
+            Member[] batch = new Member[Math.min(memberCount, 4096)];
+            for (int i = 0; i < memberCount; i += batch.length) {
+                int n = Math.min(batch.length, memberCount - i);
+                for (int j = 0; j < n; j++) {
+                    batch[j] = new Member(in.getInt(), in.getString());
+                }
+                library.restoreMembers(batch, n);
+            }
+            int loanCount = in.getInt();
+            int[] loanBookIds = new int[loanCount];
+            int[] loanMemberIds = new int[loanCount];
+            long[] checkouts = version >= 2 ? new long[loanCount] : null;
+            long[] dues = version >= 2 ? new long[loanCount] : null;
+            for (int i = 0; i < loanCount; i++) {
+                loanBookIds[i] = in.getInt();
+                loanMemberIds[i] = in.getInt();
+                if (version >= 2) {
+                    checkouts[i] = in.getLong();
+                    dues[i] = in.getLong();
+                }
+            }
+            library.restoreLoans(loanBookIds, loanMemberIds, checkouts, dues);
+            int titleCount = version >= 3 ? in.getInt() : 0;
+            for (int i = 0; i < titleCount; i++) {
+                int titleId = in.getInt();
+                String text = in.getString();
+                String author = in.getString();
+                int[] copyIds = new int[in.getInt()];
+                for (int c = 0; c < copyIds.length; c++) {
+                    copyIds[c] = in.getInt();
+                }
+                library.restoreTitle(titleId, text, author, copyIds);
+            }
+            return (image.isEmpty() ? bookCount : 0) + memberCount + loanCount + titleCount;
+        }
+    }
+    public synchronized void close() throws IOException {
+        checkpointer.shutdownNow();
+        if (library != null) {
+            checkpoint();
+            library.removeListener(journal);
+            journal.close();
+            library.flushHistory();
+            library.unmountCatalog();
+            library = null;
+        }
+        if (mountedImage != null) {
+            mountedImage.close();
+            mountedImage = null;
+            for (long gen : generations("catalog")) {
+                if (gen < generation) {
+                    Files.deleteIfExists(imageFile(gen));
+                }
+            }
+        }
+    }
+}
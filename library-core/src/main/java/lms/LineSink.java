@@ -0,0 +1,4 @@
+package lms;
+interface LineSink {
+    void line(String text);
+}
@@ -0,0 +1,175 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+class LoanCalendar {
+    private static final long BUCKET_MILLIS = 60L * 60 * 1000;
+    private final Stripe[] stripes;
+    private final int mask;
+    private final AtomicInteger size = new AtomicInteger();
+    private static final class Loan {
+        final int bookId;
+        final int memberId;
+        long checkoutMillis;
+        long dueMillis;
+        Loan(int bookId, int memberId, long checkoutMillis, long dueMillis) {
+            this.bookId = bookId;
+            this.memberId = memberId;
+            this.checkoutMillis = checkoutMillis;
+            this.dueMillis = dueMillis;
+        }
+    }
+    private static final class Stripe {
+        final IntHashMap<Loan> loans = new IntHashMap<>();
+        long[] bucketKeys = new long[8];
+        IntHashSet[] bucketIds = new IntHashSet[8];
+        int bucketCount;
+        void file(Loan loan) {
+            long key = bucketOf(loan.dueMillis);
+            int i = Arrays.binarySearch(bucketKeys, 0, bucketCount, key);
+            if (i < 0) {
+                i = -i - 1;
+                if (bucketCount == bucketKeys.length) {
+                    bucketKeys = Arrays.copyOf(bucketKeys, bucketCount * 2);
+                    bucketIds = Arrays.copyOf(bucketIds, bucketCount * 2);
+                }
+                System.arraycopy(bucketKeys, i, bucketKeys, i + 1, bucketCount - i);
+                System.arraycopy(bucketIds, i, bucketIds, i + 1, bucketCount - i);
+                bucketKeys[i] = key;
+                bucketIds[i] = new IntHashSet();
+                bucketCount++;
+            }
+            bucketIds[i].add(loan.bookId);
+        }
+        void unfile(Loan loan) {
+            int i = Arrays.binarySearch(bucketKeys, 0, bucketCount, bucketOf(loan.dueMillis));
+            if (i >= 0 && bucketIds[i].remove(loan.bookId) && bucketIds[i].isEmpty()) {
+                System.arraycopy(bucketKeys, i + 1, bucketKeys, i, bucketCount - i - 1);
+                System.arraycopy(bucketIds, i + 1, bucketIds, i, bucketCount - i - 1);
+                bucketIds[--bucketCount] = null;
+            }
+        }
+        int collectOverdue(long asOfMillis, long boundary, Overdue out) {
+            int found = 0;
+            for (int b = 0; b < bucketCount && bucketKeys[b] <= boundary; b++) {
+                boolean whole = bucketKeys[b] < boundary;
+                for (int bookId : bucketIds[b].toArray()) {
+                    Loan loan = loans.get(bookId);
+                    if (whole || loan.dueMillis < asOfMillis) {
+                        if (out != null) {
+                            out.add(loan);
+                        }
+                        found++;
+                    }
+                }
+            }
+            return found;
+        }
+    }
+    private static final class Overdue {
+        int[] bookIds = new int[16];
+        int[] memberIds = new int[16];
+        long[] checkouts = new long[16];
+        long[] dues = new long[16];
+        int size;
+        void add(Loan loan) {
+            if (size == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, size * 2);
+                memberIds = Arrays.copyOf(memberIds, size * 2);
+                checkouts = Arrays.copyOf(checkouts, size * 2);
+                dues = Arrays.copyOf(dues, size * 2);
+            }
+            bookIds[size] = loan.bookId;
+            memberIds[size] = loan.memberId;
+            checkouts[size] = loan.checkoutMillis;
+            dues[size] = loan.dueMillis;
+            size++;
+        }
+    }
+    public LoanCalendar(int concurrency) {
+        int n = 1;
+        while (n < concurrency) {
+            n <<= 1;
+        }
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = n - 1;
+    }
+    private static long bucketOf(long millis) {
+        return Math.floorDiv(millis, BUCKET_MILLIS);
+    }
+    private Stripe stripeFor(int bookId) {
+        int h = bookId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+    public int size() {
+        return size.get();
+    }
+    public void schedule(int bookId, int memberId, long checkoutMillis, long dueMillis) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            Loan previous = stripe.loans.remove(bookId);
+            if (previous != null) {
+                stripe.unfile(previous);
+            } else {
+                size.incrementAndGet();
+            }
+            Loan loan = new Loan(bookId, memberId, checkoutMillis, dueMillis);
+            stripe.loans.put(bookId, loan);
+            stripe.file(loan);
+        }
+    }
+    public boolean renew(int bookId, long dueMillis, LoanVisitor renewed) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            Loan loan = stripe.loans.get(bookId);
+            if (loan == null) {
+                return false;
+            }
+            renewed.loan(loan.bookId, loan.memberId, loan.checkoutMillis, dueMillis);
+            stripe.unfile(loan);
+            loan.dueMillis = dueMillis;
+            stripe.file(loan);
+            return true;
+        }
+    }
+    public void cancel(int bookId) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            Loan loan = stripe.loans.remove(bookId);
+            if (loan != null) {
+                stripe.unfile(loan);
+                size.decrementAndGet();
+            }
+        }
+    }
+    public boolean visit(int bookId, LoanVisitor visitor) {
+        Stripe stripe = stripeFor(bookId);
+        synchronized (stripe) {
+            Loan loan = stripe.loans.get(bookId);
+            if (loan == null) {
+                return false;
+            }
+            visitor.loan(loan.bookId, loan.memberId, loan.checkoutMillis, loan.dueMillis);
+            return true;
+        }
+    }
+    public int forEachOverdue(long asOfMillis, LoanVisitor visitor) {
+        long boundary = bucketOf(asOfMillis);
+        Overdue overdue = visitor == null ? null : new Overdue();
+        int visited = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                visited += stripe.collectOverdue(asOfMillis, boundary, overdue);
+            }
+            if (overdue != null) {
+                for (int i = 0; i < overdue.size; i++) {
+                    visitor.loan(overdue.bookIds[i], overdue.memberIds[i], overdue.checkouts[i], overdue.dues[i]);
+                }
+                overdue.size = 0;
+            }
+        }
+        return visited;
+    }
+}
@@ -0,0 +1,4 @@
+package lms;
+interface LoanVisitor {
+    void loan(int bookId, int memberId, long checkoutMillis, long dueMillis);
+}
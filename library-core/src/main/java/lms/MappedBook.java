@@ -0,0 +1,45 @@
+package lms;
+class MappedBook extends Book {
+    private final MappedCatalog catalog;
+    private int row;
+    MappedBook(MappedCatalog catalog, int row) {
+        super(0, null, null);
+        this.catalog = catalog;
+        this.row = row;
+    }
+    MappedBook moveTo(int row) {
+        this.row = row;
+        return this;
+    }
+    public int getRow() {
+        return row;
+    }
+    @Override
+    public int getId() {
+        return catalog.idAt(row);
+    }
+    @Override
+    public String getTitle() {
+        return catalog.titleAt(row);
+    }
+    @Override
+    public String getAuthor() {
+        return catalog.authorAt(row);
+    }
+    @Override
+    public int getTitleCode() {
+        return catalog.titleCodeAt(row);
+    }
+    @Override
+    public int getAuthorCode() {
+        return catalog.authorCodeAt(row);
+    }
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MappedBook && ((MappedBook) other).catalog == catalog && ((MappedBook) other).row == row;
+    }
+    @Override
+    public int hashCode() {
+        return row;
+    }
+}
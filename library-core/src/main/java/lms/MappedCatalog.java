@@ -0,0 +1,252 @@
+package lms;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+class MappedCatalog implements Closeable {
+    private static final int MAGIC = 0x4C434154;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int V1_HEADER_BYTES = 16;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int version;
+    private final int count;
+    private final int idsAt;
+    private final int titlesAt;
+    private final int authorsAt;
+    private final int heapAt;
+    private final int offsetsAt;
+    private final AtomicIntegerArray codes;
+    private volatile StringDictionary dictionary;
+    private volatile boolean released;
+    private MappedCatalog(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        version = buffer.getInt(0) == MAGIC ? buffer.getInt(4) : -1;
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unrecognized catalog format.");
+        }
+        count = buffer.getInt(8);
+        int stringCount = version == 1 ? 2 * count : buffer.getInt(16);
+        idsAt = version == 1 ? V1_HEADER_BYTES : HEADER_BYTES;
+        titlesAt = idsAt + 4 * count;
+        authorsAt = titlesAt + 4 * count;
+        heapAt = authorsAt + 4 * count;
+        offsetsAt = heapAt + buffer.getInt(12);
+        if (offsetsAt + (version == 1 ? 0 : 4L * stringCount) != buffer.capacity()) {
+            throw new IOException("Truncated catalog file.");
+        }
+        codes = new AtomicIntegerArray(stringCount);
+    }
+    public static MappedCatalog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog exceeds the 2 GB mapping limit.");
+            }
+            return new MappedCatalog(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    public static void write(Path file, Collection<? extends Book> source) throws IOException {
+        Book[] books = source.toArray(new Book[0]);
+        int n = books.length;
+        long[] keyed = new long[n];
+        for (int i = 0; i < n; i++) {
+            keyed[i] = IdSorter.pack(books[i].getId(), i);
+        }
+        IdSorter.forSize(n).sort(keyed, 0, n);
+        int[] ids = new int[n];
+        int[] titles = new int[n];
+        int[] authors = new int[n];
+        HashMap<String, Integer> authorRefs = new HashMap<>();
+        long heapStart = HEADER_BYTES + 12L * n;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(heapStart);
+            StringTable heap = new StringTable(new BinaryWriter(channel, 1 << 20), heapStart, n);
+            for (int i = 0; i < n; i++) {
+                Book book = books[IdSorter.position(keyed[i])];
+                ids[i] = book.getId();
+                if (i > 0 && ids[i] == ids[i - 1]) {
+                    throw new IllegalArgumentException("Book ID already exists.");
+                }
+                titles[i] = heap.add(book.getTitle());
+                Integer author = authorRefs.get(book.getAuthor());
+                if (author == null) {
+                    author = heap.add(book.getAuthor());
+                    authorRefs.put(book.getAuthor(), author);
+                }
+                authors[i] = author;
+            }
+            heap.finish();
+            channel.position(0);
+            BinaryWriter columns = new BinaryWriter(channel, 1 << 20);
+            columns.putInt(MAGIC);
+            columns.putInt(VERSION);
+            columns.putInt(n);
+            columns.putInt((int) heap.bytes);
+            columns.putInt(heap.count);
+            for (int[] column : new int[][] {ids, titles, authors}) {
+                for (int value : column) {
+                    columns.putInt(value);
+                }
+            }
+            columns.flush(true);
+        }
+    }
+    private static final class StringTable {
+        final BinaryWriter out;
+        final long start;
+        int[] offsets;
+        int count;
+        long bytes;
+        StringTable(BinaryWriter out, long start, int expected) {
+            this.out = out;
+            this.start = start;
+            this.offsets = new int[Math.max(16, expected)];
+        }
+        int add(String value) throws IOException {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count] = (int) bytes;
+            bytes += 4 + utf8Length(value);
+            if (start + bytes + 4L * (count + 1) > Integer.MAX_VALUE) {
+                throw new IOException("Catalog exceeds the 2 GB mapping limit.");
+            }
+            out.putString(value);
+            return count++;
+        }
+        void finish() throws IOException {
+            for (int i = 0; i < count; i++) {
+                out.putInt(offsets[i]);
+            }
+            out.flush(false);
+        }
+    }
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+    public int size() {
+        return count;
+    }
+    public int idAt(int row) {
+        return buffer.getInt(idsAt + 4 * row);
+    }
+    private int titleRef(int row) {
+        return version == 1 ? 2 * row : buffer.getInt(titlesAt + 4 * row);
+    }
+    private int authorRef(int row) {
+        return version == 1 ? 2 * row + 1 : buffer.getInt(authorsAt + 4 * row);
+    }
+    private String stringOf(int ref) {
+        if (version == 1) {
+            return stringAt(heapAt + buffer.getInt(((ref & 1) == 0 ? titlesAt : authorsAt) + 4 * (ref >>> 1)));
+        }
+        return stringAt(heapAt + buffer.getInt(offsetsAt + 4 * ref));
+    }
+    private int codeOf(int ref) {
+        while (true) {
+            int code = codes.get(ref);
+            if (code != 0) {
+                return code - 1;
+            }
+            if (released) {
+                return dictionary.codeOf(stringOf(ref));
+            }
+            int interned = dictionary.intern(stringOf(ref));
+            if (interned == StringDictionary.NULL) {
+                return interned;
+            }
+            if (codes.compareAndSet(ref, 0, interned + 1)) {
+                if (released && codes.compareAndSet(ref, interned + 1, 0)) {
+                    dictionary.release(interned);
+                }
+                return interned;
+            }
+            dictionary.release(interned);
+        }
+    }
+    void releaseCodes() {
+        released = true;
+        for (int ref = 0; ref < codes.length(); ref++) {
+            int code = codes.getAndSet(ref, 0);
+            if (code != 0) {
+                dictionary.release(code - 1);
+            }
+        }
+    }
+    void useDictionary(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+    public String titleAt(int row) {
+        return stringOf(titleRef(row));
+    }
+    public String authorAt(int row) {
+        return stringOf(authorRef(row));
+    }
+    public int titleCodeAt(int row) {
+        return codeOf(titleRef(row));
+    }
+    public int authorCodeAt(int row) {
+        return codeOf(authorRef(row));
+    }
+    private String stringAt(int offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    public int rowOf(int id) {
+        int left = 0;
+        int right = count - 1;
+        while (left <= right) {
+            int mid = (left + right) >>> 1;
+            int midId = idAt(mid);
+            if (midId == id) {
+                return mid;
+            } else if (midId < id) {
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+        return -1;
+    }
+    public Book find(int id) {
+        int row = rowOf(id);
+        return row < 0 ? null : new MappedBook(this, row);
+    }
+    public MappedBook cursor() {
+        return new MappedBook(this, 0);
+    }
+    public void forEach(Consumer<Book> action) {
+        MappedBook view = cursor();
+        for (int row = 0; row < count; row++) {
+            action.accept(view.moveTo(row));
+        }
+    }
+    public void close() throws IOException {
+        channel.close();
+    }
+}
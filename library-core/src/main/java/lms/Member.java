@@ -0,0 +1,93 @@
+package lms;
+import java.util.function.*;
+class Member {
+    private static final class Name {
+        final String value;
+        Name(String value) {
+            this.value = value;
+        }
+    }
+    private static final class Code {
+        final StringDictionary dictionary;
+        final int code;
+        final int generation;
+        Code(StringDictionary dictionary, int code) {
+            this.dictionary = dictionary;
+            this.code = code;
+            this.generation = dictionary.generation(code);
+        }
+    }
+    private final int memberId;
+    private volatile Object name;
+    private final IntHashSet borrowedBookIds;
+    public Member(int memberId, String memberName) {
+        this.memberId = memberId;
+        this.name = new Name(memberName);
+        this.borrowedBookIds = new IntHashSet(4);
+    }
+    public int getMemberId() {
+        return memberId;
+    }
+    public String getMemberName() {
+        while (true) {
+            Object current = name;
+            if (current instanceof Name) {
+                return ((Name) current).value;
+            }
+            Code code = (Code) current;
+            String value = code.dictionary.get(code.code, code.generation);
+            if (value != null || code.code == StringDictionary.NULL || name == current) {
+                return value;
+            }
+        }
+    }
+    public int getNameCode() {
+        Object current = name;
+        return current instanceof Code ? ((Code) current).code : StringDictionary.NULL;
+    }
+    void bind(StringDictionary dictionary) {
+        Object current = name;
+        if (current instanceof Code) {
+            if (((Code) current).dictionary != dictionary) {
+                throw new IllegalArgumentException("Member " + memberId + " already belongs to another library.");
+            }
+            return;
+        }
+        name = new Code(dictionary, dictionary.intern(((Name) current).value));
+    }
+    void retire() {
+        Object current = name;
+        if (current instanceof Code) {
+            Code code = (Code) current;
+            name = new Name(getMemberName());
+            code.dictionary.release(code.code);
+        }
+    }
+    public synchronized int[] getBorrowedBookIds() {
+        return borrowedBookIds.toArray();
+    }
+    public synchronized int borrowedCount() {
+        return borrowedBookIds.size();
+    }
+    public synchronized boolean hasBorrowed(int bookId) {
+        return borrowedBookIds.contains(bookId);
+    }
+    public synchronized void forEachBorrowedBookId(IntConsumer action) {
+        borrowedBookIds.forEach(action);
+    }
+    public synchronized void borrowBook(Book book) {
+        borrowedBookIds.add(book.getId());
+    }
+    public synchronized void returnBook(Book book) {
+        borrowedBookIds.remove(book.getId());
+    }
+    synchronized int[] releaseAll() {
+        int[] held = borrowedBookIds.toArray();
+        borrowedBookIds.clear();
+        return held;
+    }
+    @Override
+    public String toString() {
+        return "ID: " + memberId + ", Name: " + getMemberName();
+    }
+}
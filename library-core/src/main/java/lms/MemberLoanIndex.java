@@ -0,0 +1,194 @@
+package lms;
+import java.util.*;
+class MemberLoanIndex {
+    private static final int[] NONE = new int[0];
+    private static final class Segment {
+        int[] members = new int[16];
+        int[][] held = new int[16][];
+        int size;
+        boolean shared;
+        int indexOf(int memberId) {
+            return Arrays.binarySearch(members, 0, size, memberId);
+        }
+        void unshare() {
+            if (shared) {
+                members = members.clone();
+                held = held.clone();
+                shared = false;
+            }
+        }
+        void insertAt(int i, int memberId, int[] books) {
+            unshare();
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+                held = Arrays.copyOf(held, size * 2);
+            }
+            System.arraycopy(members, i, members, i + 1, size - i);
+            System.arraycopy(held, i, held, i + 1, size - i);
+            members[i] = memberId;
+            held[i] = books;
+            size++;
+        }
+        void removeAt(int i) {
+            unshare();
+            System.arraycopy(members, i + 1, members, i, size - i - 1);
+            System.arraycopy(held, i + 1, held, i, size - i - 1);
+            held[--size] = null;
+        }
+        void share(View view, int slot) {
+            shared = true;
+            view.members[slot] = members;
+            view.held[slot] = held;
+            view.sizes[slot] = size;
+        }
+    }
+    private final Segment[] segments;
+    private final int mask;
+    public MemberLoanIndex(int concurrency) {
+        int n = 1;
+        while (n < concurrency) {
+            n <<= 1;
+        }
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment();
+        }
+        mask = n - 1;
+    }
+    private Segment segmentFor(int memberId) {
+        int h = memberId * 0x9E3779B9;
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+    public void add(int memberId, int bookId) {
+        Segment segment = segmentFor(memberId);
+        synchronized (segment) {
+            int i = segment.indexOf(memberId);
+            if (i < 0) {
+                segment.insertAt(-i - 1, memberId, new int[] {bookId});
+                return;
+            }
+            int[] books = segment.held[i];
+            int j = Arrays.binarySearch(books, bookId);
+            if (j >= 0) {
+                return;
+            }
+            j = -j - 1;
+            int[] grown = new int[books.length + 1];
+            System.arraycopy(books, 0, grown, 0, j);
+            grown[j] = bookId;
+            System.arraycopy(books, j, grown, j + 1, books.length - j);
+            segment.unshare();
+            segment.held[i] = grown;
+        }
+    }
+    public void remove(int memberId, int bookId) {
+        Segment segment = segmentFor(memberId);
+        synchronized (segment) {
+            int i = segment.indexOf(memberId);
+            if (i < 0) {
+                return;
+            }
+            int[] books = segment.held[i];
+            int j = Arrays.binarySearch(books, bookId);
+            if (j < 0) {
+                return;
+            }
+            if (books.length == 1) {
+                segment.removeAt(i);
+                return;
+            }
+            int[] shrunk = new int[books.length - 1];
+            System.arraycopy(books, 0, shrunk, 0, j);
+            System.arraycopy(books, j + 1, shrunk, j, shrunk.length - j);
+            segment.unshare();
+            segment.held[i] = shrunk;
+        }
+    }
+    public void removeMember(int memberId) {
+        Segment segment = segmentFor(memberId);
+        synchronized (segment) {
+            int i = segment.indexOf(memberId);
+            if (i >= 0) {
+                segment.removeAt(i);
+            }
+        }
+    }
+    public int[] heldBy(int memberId) {
+        Segment segment = segmentFor(memberId);
+        synchronized (segment) {
+            int i = segment.indexOf(memberId);
+            return i < 0 ? NONE : segment.held[i].clone();
+        }
+    }
+    public void forEachOrdered(IntPairConsumer action) {
+        snapshot().forEachOrdered(action);
+    }
+    public View snapshot() {
+        View view = new View(segments.length);
+        for (int s = 0; s < segments.length; s++) {
+            synchronized (segments[s]) {
+                segments[s].share(view, s);
+            }
+        }
+        return view;
+    }
+    static final class View {
+        final int[][] members;
+        final int[][][] held;
+        final int[] sizes;
+        View(int segmentCount) {
+            members = new int[segmentCount][];
+            held = new int[segmentCount][][];
+            sizes = new int[segmentCount];
+        }
+        public void forEachOrdered(IntPairConsumer action) {
+            int[] heap = new int[sizes.length];
+            int[] cursor = new int[sizes.length];
+            int heapSize = 0;
+            for (int s = 0; s < sizes.length; s++) {
+                if (sizes[s] > 0) {
+                    heap[heapSize++] = s;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i, cursor);
+            }
+            while (heapSize > 0) {
+                int s = heap[0];
+                int c = cursor[s]++;
+                int memberId = members[s][c];
+                for (int bookId : held[s][c]) {
+                    action.accept(memberId, bookId);
+                }
+                if (cursor[s] == sizes[s]) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize, 0, cursor);
+            }
+        }
+        private void siftDown(int[] heap, int heapSize, int i, int[] cursor) {
+            if (heapSize == 0) {
+                return;
+            }
+            int s = heap[i];
+            int key = members[s][cursor[s]];
+            int child;
+            while ((child = 2 * i + 1) < heapSize) {
+                int c = heap[child];
+                if (child + 1 < heapSize) {
+                    int r = heap[child + 1];
+                    if (members[r][cursor[r]] < members[c][cursor[c]]) {
+                        child++;
+                        c = r;
+                    }
+                }
+                if (members[c][cursor[c]] >= key) {
+                    break;
+                }
+                heap[i] = c;
+                i = child;
+            }
+            heap[i] = s;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package lms;
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+class MetricsSnapshot {
+    final long takenAtMillis;
+    final LatencyHistogram.Snapshot[] latencies;
+    final long[] calls;
+    final long[] failures;
+    final int books;
+    final int members;
+    final int borrowRecords;
+    MetricsSnapshot(long takenAtMillis, LatencyHistogram.Snapshot[] latencies, long[] calls, long[] failures, int books, int members, int borrowRecords) {
+        this.takenAtMillis = takenAtMillis;
+        this.latencies = latencies;
+        this.calls = calls;
+        this.failures = failures;
+        this.books = books;
+        this.members = members;
+        this.borrowRecords = borrowRecords;
+    }
+    public void writeTo(LineSink sink) {
+        sink.line("Metrics at " + new Date(takenAtMillis) + ": books=" + books + " members=" + members + " borrowRecords=" + borrowRecords);
+        sink.line(String.format("%-18s %10s %8s %10s %10s %10s %10s %10s", "operation", "calls", "failed", "mean us", "p50 us", "p99 us", "p999 us", "max us"));
+        for (int i = 0; i < latencies.length; i++) {
+            LatencyHistogram.Snapshot h = latencies[i];
+            if (calls[i] == 0) {
+                continue;
+            }
+            sink.line(String.format(Locale.ROOT, "%-18s %10d %8d %10.2f %10.2f %10.2f %10.2f %10.2f", LibraryMetrics.NAMES[i], calls[i], failures[i],
+                h.meanNanos() / 1000.0, h.percentile(0.50) / 1000.0, h.percentile(0.99) / 1000.0, h.percentile(0.999) / 1000.0, h.maxNanos / 1000.0));
+        }
+    }
+    public void export(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writeTo(text -> {
+                try {
+                    out.write(text);
+                    out.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
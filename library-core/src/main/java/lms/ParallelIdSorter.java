@@ -0,0 +1,54 @@
+package lms;
+import java.util.concurrent.*;
+class ParallelIdSorter implements IdSorter {
+    static final int MIN_PARALLEL_SIZE = 1 << 16;
+    static final ParallelIdSorter COMMON = new ParallelIdSorter(ForkJoinPool.commonPool());
+    private final ForkJoinPool pool;
+    public ParallelIdSorter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    public void sort(long[] a, int from, int to) {
+        int leaf = Math.max(8192, (to - from) / (pool.getParallelism() * 4));
+        pool.invoke(new SortTask(a, new long[to - from], from, from, to, leaf));
+    }
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final long[] a;
+        private final long[] buffer;
+        private final int origin;
+        private final int from;
+        private final int to;
+        private final int leaf;
+        SortTask(long[] a, long[] buffer, int origin, int from, int to, int leaf) {
+            this.a = a;
+            this.buffer = buffer;
+            this.origin = origin;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                IntroSorter.INSTANCE.sort(a, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(a, buffer, origin, from, mid, leaf), new SortTask(a, buffer, origin, mid, to, leaf));
+            if (a[mid - 1] <= a[mid]) {
+                return;
+            }
+            System.arraycopy(a, from, buffer, from - origin, mid - from);
+            int i = from - origin;
+            int iEnd = mid - origin;
+            int j = mid;
+            int k = from;
+            while (i < iEnd && j < to) {
+                a[k++] = buffer[i] <= a[j] ? buffer[i++] : a[j++];
+            }
+            while (i < iEnd) {
+                a[k++] = buffer[i++];
+            }
+        }
+    }
+}
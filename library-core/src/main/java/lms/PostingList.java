@@ -0,0 +1,178 @@
+package lms;
+import java.util.*;
+class PostingList {
+    private static final int SKIP_INTERVAL = 64;
+    private static final int MIN_PENDING = 16;
+    private byte[] data = new byte[4];
+    private int length;
+    private int count;
+    private long last = -1;
+    private int[] skipIds = new int[1];
+    private int[] skipEnds = new int[1];
+    private int[] pending = new int[0];
+    private int pendingCount;
+    private boolean pendingSorted = true;
+    private static long key(int id) {
+        return (id ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+    private static int id(long key) {
+        return (int) key ^ Integer.MIN_VALUE;
+    }
+    public int size() {
+        return count + pendingCount;
+    }
+    public int sizeInBytes() {
+        return length + 4 * pending.length + 8 * skipIds.length;
+    }
+    public void add(int id) {
+        long k = key(id);
+        if (k > last) {
+            append(k);
+            return;
+        }
+        if (k == last) {
+            return;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(MIN_PENDING, pending.length * 2));
+        }
+        pending[pendingCount++] = id;
+        pendingSorted = false;
+        if (pendingCount >= Math.max(MIN_PENDING, count >>> 3)) {
+            int[] merged = toArray();
+            rewrite(merged, merged.length);
+        }
+    }
+    public void removeAll(IntHashSet ids) {
+        int[] all = toArray();
+        int n = 0;
+        for (int id : all) {
+            if (!ids.contains(id)) {
+                all[n++] = id;
+            }
+        }
+        if (n != all.length || pendingCount > 0) {
+            rewrite(all, n);
+        }
+    }
+    private void rewrite(int[] ids, int n) {
+        data = new byte[Math.max(4, length)];
+        length = 0;
+        count = 0;
+        last = -1;
+        skipIds = new int[Math.max(1, (n + SKIP_INTERVAL - 1) / SKIP_INTERVAL)];
+        skipEnds = new int[skipIds.length];
+        pending = new int[0];
+        pendingCount = 0;
+        pendingSorted = true;
+        for (int i = 0; i < n; i++) {
+            append(key(ids[i]));
+        }
+    }
+    private void append(long k) {
+        long delta = k - last;
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2 + 5);
+        }
+        while (delta >= 0x80) {
+            data[length++] = (byte) (delta | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        if (count % SKIP_INTERVAL == 0) {
+            int block = count / SKIP_INTERVAL;
+            if (block == skipIds.length) {
+                skipIds = Arrays.copyOf(skipIds, block * 2);
+                skipEnds = Arrays.copyOf(skipEnds, block * 2);
+            }
+            skipIds[block] = id(k);
+            skipEnds[block] = length;
+        }
+        last = k;
+        count++;
+    }
+    private void sortPending() {
+        synchronized (this) {
+            if (!pendingSorted) {
+                Arrays.sort(pending, 0, pendingCount);
+                pendingSorted = true;
+            }
+        }
+    }
+    public boolean contains(int id) {
+        if (pendingCount > 0) {
+            sortPending();
+            if (Arrays.binarySearch(pending, 0, pendingCount, id) >= 0) {
+                return true;
+            }
+        }
+        long k = key(id);
+        if (count == 0 || k > last) {
+            return false;
+        }
+        int blocks = (count + SKIP_INTERVAL - 1) / SKIP_INTERVAL;
+        int block = Arrays.binarySearch(skipIds, 0, blocks, id);
+        if (block >= 0) {
+            return true;
+        }
+        block = -block - 2;
+        if (block < 0) {
+            return false;
+        }
+        long current = key(skipIds[block]);
+        int pos = skipEnds[block];
+        int remaining = Math.min(SKIP_INTERVAL, count - block * SKIP_INTERVAL) - 1;
+        for (; remaining > 0; remaining--) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            if (current >= k) {
+                return current == k;
+            }
+        }
+        return false;
+    }
+    public int[] toArray() {
+        int[] ids = new int[count];
+        long current = -1;
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            ids[i] = id(current);
+        }
+        if (pendingCount == 0) {
+            return ids;
+        }
+        sortPending();
+        int[] merged = new int[count + pendingCount];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < count || j < pendingCount) {
+            int next;
+            if (j == pendingCount || (i < count && ids[i] <= pending[j])) {
+                next = ids[i++];
+            } else {
+                next = pending[j++];
+            }
+            if (n == 0 || merged[n - 1] != next) {
+                merged[n++] = next;
+            }
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+}
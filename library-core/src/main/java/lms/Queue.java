@@ -0,0 +1,71 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+class Queue<T> {
+    private static final class Node<T> {
+        final T item;
+        final AtomicReference<Node<T>> next = new AtomicReference<>();
+        Node(T item) {
+            this.item = item;
+        }
+    }
+    private final AtomicReference<Node<T>> head;
+    private final AtomicReference<Node<T>> tail;
+    private final AtomicInteger size = new AtomicInteger();
+    public Queue() {
+        Node<T> sentinel = new Node<>(null);
+        head = new AtomicReference<>(sentinel);
+        tail = new AtomicReference<>(sentinel);
+    }
+    public void enqueue(T element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null elements are not supported.");
+        }
+        Node<T> node = new Node<>(element);
+        while (true) {
+            Node<T> last = tail.get();
+            Node<T> next = last.next.get();
+            if (next != null) {
+                tail.compareAndSet(last, next);
+            } else if (last.next.compareAndSet(null, node)) {
+                tail.compareAndSet(last, node);
+                size.incrementAndGet();
+                return;
+            }
+        }
+    }
+    public T dequeue() {
+        while (true) {
+            Node<T> first = head.get();
+            Node<T> next = first.next.get();
+            if (next == null) {
+                return null;
+            }
+            Node<T> last = tail.get();
+            if (first == last) {
+                tail.compareAndSet(last, next);
+            }
+            if (head.compareAndSet(first, next)) {
+                size.decrementAndGet();
+                return next.item;
+            }
+        }
+    }
+    public T peek() {
+        Node<T> next = head.get().next.get();
+        return next == null ? null : next.item;
+    }
+    public boolean isEmpty() {
+        return head.get().next.get() == null;
+    }
+    public int size() {
+        return Math.max(0, size.get());
+    }
+    public ArrayList<T> getAllElements() {
+        ArrayList<T> elements = new ArrayList<>();
+        for (Node<T> node = head.get().next.get(); node != null; node = node.next.get()) {
+            elements.add(node.item);
+        }
+        return elements;
+    }
+}
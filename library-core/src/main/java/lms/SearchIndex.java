@@ -0,0 +1,215 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.locks.*;
+class SearchIndex implements LibraryListener {
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final int COMPACT_THRESHOLD = 4096;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<String, Integer> termIds = new HashMap<>();
+    private final ArrayList<PostingList> postings = new ArrayList<>();
+    private final ArrayList<String> terms = new ArrayList<>();
+    private int[] liveCounts = new int[16];
+    private final ArrayDeque<Integer> freeTermIds = new ArrayDeque<>();
+    private final TermTrie trie = new TermTrie();
+    private final IntHashMap<int[]> deletedTerms = new IntHashMap<>();
+    public static ArrayList<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    private int[] termsOf(Book book, boolean create) {
+        IntHashSet seen = new IntHashSet();
+        for (String field : new String[] {book.getTitle(), book.getAuthor()}) {
+            for (String token : tokenize(field)) {
+                Integer termId = termIds.get(token);
+                if (termId == null) {
+                    if (!create) {
+                        continue;
+                    }
+                    termId = freeTermIds.isEmpty() ? postings.size() : freeTermIds.pop();
+                    if (termId == postings.size()) {
+                        postings.add(new PostingList());
+                        terms.add(token);
+                        if (termId == liveCounts.length) {
+                            liveCounts = Arrays.copyOf(liveCounts, termId * 2);
+                        }
+                    } else {
+                        terms.set(termId, token);
+                    }
+                    termIds.put(token, termId);
+                    trie.insert(token, termId);
+                }
+                seen.add(termId);
+            }
+        }
+        return seen.toArray();
+    }
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            int id = book.getId();
+            int[] stale = deletedTerms.remove(id);
+            if (stale != null) {
+                IntHashSet ids = new IntHashSet();
+                ids.add(id);
+                for (int termId : stale) {
+                    postings.get(termId).removeAll(ids);
+                }
+            }
+            for (int termId : termsOf(book, true)) {
+                postings.get(termId).add(id);
+                liveCounts[termId]++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void bookDeleted(Book book) {
+        lock.writeLock().lock();
+        try {
+            int[] bookTerms = termsOf(book, false);
+            deletedTerms.put(book.getId(), bookTerms);
+            for (int termId : bookTerms) {
+                if (--liveCounts[termId] == 0) {
+                    prune(termId);
+                }
+            }
+            if (deletedTerms.size() >= COMPACT_THRESHOLD) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    private void prune(int termId) {
+        String token = terms.get(termId);
+        termIds.remove(token);
+        trie.remove(token);
+        terms.set(termId, null);
+        postings.set(termId, new PostingList());
+        freeTermIds.push(termId);
+    }
+    private void compact() {
+        IntHashMap<IntHashSet> byTerm = new IntHashMap<>();
+        for (int id : deletedTerms.keys()) {
+            for (int termId : deletedTerms.get(id)) {
+                IntHashSet ids = byTerm.get(termId);
+                if (ids == null) {
+                    ids = new IntHashSet();
+                    byTerm.put(termId, ids);
+                }
+                ids.add(id);
+            }
+        }
+        for (int termId : byTerm.keys()) {
+            postings.get(termId).removeAll(byTerm.get(termId));
+        }
+        deletedTerms.clear();
+    }
+    public int[] search(String query, int limit) {
+        ArrayList<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new int[0];
+        }
+        boolean prefixLast = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        lock.readLock().lock();
+        try {
+            int[][] expansions = new int[tokens.size()][];
+            long[] estimates = new long[tokens.size()];
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                IntHashSet expansion = new IntHashSet();
+                Integer exact = termIds.get(token);
+                if (exact != null) {
+                    expansion.add(exact);
+                }
+                if (prefixLast && t == tokens.size() - 1) {
+                    trie.collectPrefix(token, MAX_PREFIX_TERMS, expansion::add);
+                }
+                if (expansion.isEmpty() && token.length() >= 4) {
+                    trie.collectFuzzy(token, token.length() >= 8 ? 2 : 1, expansion::add);
+                }
+                expansions[t] = expansion.toArray();
+                long estimate = 0;
+                for (int termId : expansions[t]) {
+                    estimate += postings.get(termId).size();
+                }
+                estimates[t] = IdSorter.pack((int) Math.min(estimate, Integer.MAX_VALUE), t);
+            }
+            Arrays.sort(estimates);
+            int[] result = union(expansions[IdSorter.position(estimates[0])]);
+            for (int t = 1; t < estimates.length && result.length > 0; t++) {
+                result = retain(result, expansions[IdSorter.position(estimates[t])]);
+            }
+            int n = 0;
+            for (int i = 0; i < result.length && n < limit; i++) {
+                if (deletedTerms.isEmpty() || !deletedTerms.containsKey(result[i])) {
+                    result[n++] = result[i];
+                }
+            }
+            return Arrays.copyOf(result, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    private int[] union(int[] terms) {
+        if (terms.length == 1) {
+            return postings.get(terms[0]).toArray();
+        }
+        int total = 0;
+        int[][] lists = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            lists[i] = postings.get(terms[i]).toArray();
+            total += lists[i].length;
+        }
+        int[] all = new int[total];
+        int n = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, all, n, list.length);
+            n += list.length;
+        }
+        return sortedUnique(all, total);
+    }
+    private int[] retain(int[] candidates, int[] terms) {
+        int n = 0;
+        for (int id : candidates) {
+            for (int termId : terms) {
+                if (postings.get(termId).contains(id)) {
+                    candidates[n++] = id;
+                    break;
+                }
+            }
+        }
+        return n == candidates.length ? candidates : Arrays.copyOf(candidates, n);
+    }
+    private static int[] sortedUnique(int[] ids, int n) {
+        Arrays.sort(ids, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return termIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+class SegmentedList<T> implements Iterable<T> {
+    private static final int SEGMENT_SIZE = 1024;
+    private static final class Home {
+        final long order;
+        Home(long order) {
+            this.order = order;
+        }
+    }
+    private static final class Segment {
+        final Object[] items;
+        int count;
+        final long epoch;
+        final Home home;
+        Segment(Object[] items, int count, long epoch, Home home) {
+            this.items = items;
+            this.count = count;
+            this.epoch = epoch;
+            this.home = home;
+        }
+    }
+    private final AtomicLong epoch = new AtomicLong();
+    private final ToIntFunction<T> keyOf;
+    private final IntHashMap<Home> homes = new IntHashMap<>();
+    private Segment[] spine = new Segment[8];
+    private int segments;
+    private int size;
+    private long nextOrder;
+    public SegmentedList(ToIntFunction<T> keyOf) {
+        this.keyOf = keyOf;
+    }
+    public int size() {
+        return size;
+    }
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    private Segment writable(int index) {
+        Segment segment = spine[index];
+        long current = epoch.get();
+        if (segment.epoch != current) {
+            segment = new Segment(Arrays.copyOf(segment.items, SEGMENT_SIZE), segment.count, current, segment.home);
+            spine[index] = segment;
+        }
+        return segment;
+    }
+    private void insertSegment(int index, Segment segment) {
+        if (segments == spine.length) {
+            spine = Arrays.copyOf(spine, segments * 2);
+        }
+        System.arraycopy(spine, index, spine, index + 1, segments - index);
+        spine[index] = segment;
+        segments++;
+    }
+    private void removeSegment(int index) {
+        System.arraycopy(spine, index + 1, spine, index, segments - index - 1);
+        spine[--segments] = null;
+    }
+    public void add(T item) {
+        if (segments == 0 || spine[segments - 1].count == SEGMENT_SIZE) {
+            insertSegment(segments, new Segment(new Object[SEGMENT_SIZE], 0, epoch.get(), new Home(nextOrder++)));
+        }
+        Segment last = writable(segments - 1);
+        last.items[last.count++] = item;
+        homes.put(keyOf.applyAsInt(item), last.home);
+        size++;
+    }
+    public boolean remove(T item) {
+        int key = keyOf.applyAsInt(item);
+        Home home = homes.get(key);
+        if (home == null) {
+            return false;
+        }
+        int lo = 0;
+        int hi = segments - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long order = spine[mid].home.order;
+            if (order < home.order) {
+                lo = mid + 1;
+            } else if (order > home.order) {
+                hi = mid - 1;
+            } else {
+                Segment segment = spine[mid];
+                for (int i = 0; i < segment.count; i++) {
+                    if (segment.items[i] == item) {
+                        homes.remove(key);
+                        removeAt(mid, i);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+    private void removeAt(int s, int i) {
+        Segment segment = writable(s);
+        System.arraycopy(segment.items, i + 1, segment.items, i, segment.count - i - 1);
+        segment.items[--segment.count] = null;
+        size--;
+        if (segment.count == 0) {
+            removeSegment(s);
+        } else if (segment.count < SEGMENT_SIZE / 4 && s + 1 < segments && segment.count + spine[s + 1].count <= SEGMENT_SIZE) {
+            Segment next = spine[s + 1];
+            System.arraycopy(next.items, 0, segment.items, segment.count, next.count);
+            for (int j = 0; j < next.count; j++) {
+                @SuppressWarnings("unchecked")
+                T moved = (T) next.items[j];
+                homes.put(keyOf.applyAsInt(moved), segment.home);
+            }
+            segment.count += next.count;
+            removeSegment(s + 1);
+        }
+    }
+    @SuppressWarnings("unchecked")
+    public void replaceAll(Object[] ordered) {
+        Arrays.fill(spine, 0, segments, null);
+        segments = 0;
+        size = 0;
+        homes.clear();
+        for (Object item : ordered) {
+            add((T) item);
+        }
+    }
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        int n = 0;
+        for (int s = 0; s < segments; s++) {
+            System.arraycopy(spine[s].items, 0, result, n, spine[s].count);
+            n += spine[s].count;
+        }
+        return result;
+    }
+    @SuppressWarnings("unchecked")
+    public <E> E[] toArray(E[] prototype) {
+        E[] result = Arrays.copyOf(prototype, size);
+        System.arraycopy(toArray(), 0, result, 0, size);
+        return result;
+    }
+    public Iterator<T> iterator() {
+        return new View<T>(Arrays.copyOf(spine, segments), size).iterator();
+    }
+    public View<T> snapshot() {
+        View<T> view = new View<>(Arrays.copyOf(spine, segments), size);
+        epoch.incrementAndGet();
+        return view;
+    }
+    static final class View<T> implements Iterable<T> {
+        private final Segment[] spine;
+        private final int[] counts;
+        private final int[] offsets;
+        private final int size;
+        private View(Segment[] spine, int size) {
+            this.spine = spine;
+            this.counts = new int[spine.length];
+            this.offsets = new int[spine.length];
+            int offset = 0;
+            for (int s = 0; s < spine.length; s++) {
+                counts[s] = spine[s].count;
+                offsets[s] = offset;
+                offset += counts[s];
+            }
+            this.size = size;
+        }
+        public int size() {
+            return size;
+        }
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            int s = Arrays.binarySearch(offsets, index);
+            if (s < 0) {
+                s = -s - 2;
+            }
+            while (counts[s] == 0 || index - offsets[s] >= counts[s]) {
+                s++;
+            }
+            return (T) spine[s].items[index - offsets[s]];
+        }
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int s;
+                private int i;
+                public boolean hasNext() {
+                    while (s < spine.length && i >= counts[s]) {
+                        s++;
+                        i = 0;
+                    }
+                    return s < spine.length;
+                }
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return (T) spine[s].items[i++];
+                }
+            };
+        }
+    }
+}
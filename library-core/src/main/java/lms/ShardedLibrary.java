@@ -0,0 +1,510 @@
+package lms;
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+class ShardedLibrary implements Closeable {
+    static final int BY_HASH = 1;
+    static final int BY_RANGE = 2;
+    private static final class Shard {
+        final int index;
+        final Library library;
+        final Queue<Runnable> inbound = new Queue<>();
+        final IntHashSet removing = new IntHashSet();
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean parked;
+        LibraryStore store;
+        Shard(int index, Library library) {
+            this.index = index;
+            this.library = library;
+            thread = new Thread(this::loop, "library-shard-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        void submit(Runnable task) {
+            inbound.enqueue(task);
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+        private void loop() {
+            while (running) {
+                Runnable task = inbound.dequeue();
+                if (task == null) {
+                    parked = true;
+                    if (inbound.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                task.run();
+            }
+        }
+        void stop() throws InterruptedException {
+            running = false;
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+    private final Shard[] shards;
+    private final int partitioning;
+    private final int rangeWidth;
+    private final StringDictionary dictionary = new StringDictionary();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean closed;
+    public ShardedLibrary(int shardCount) {
+        this(shardCount, BY_HASH, 0);
+    }
+    public ShardedLibrary(int shardCount, int partitioning, int rangeWidth) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        if (partitioning == BY_RANGE ? rangeWidth < 1 : partitioning != BY_HASH) {
+            throw new IllegalArgumentException("Partitioning must be BY_HASH, or BY_RANGE with a positive range width.");
+        }
+        this.partitioning = partitioning;
+        this.rangeWidth = rangeWidth;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int index = i;
+            Library library = new Library(dictionary);
+            library.setForeignMembers(memberId -> shardOf(memberId) != index);
+            shards[i] = new Shard(i, library);
+        }
+    }
+    public int shardCount() {
+        return shards.length;
+    }
+    int shardOf(int id) {
+        if (partitioning == BY_RANGE) {
+            return Math.max(0, Math.min(shards.length - 1, Math.floorDiv(id, rangeWidth)));
+        }
+        int h = id * 0x9E3779B9;
+        return (int) (((h ^ (h >>> 16)) & 0xFFFFFFFFL) % shards.length);
+    }
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+    public void setClock(LongSupplier clock) {
+        for (Shard shard : shards) {
+            shard.library.setClock(clock);
+        }
+    }
+    public void setLoanPeriod(long millis) {
+        for (Shard shard : shards) {
+            shard.library.setLoanPeriod(millis);
+        }
+    }
+    private <T> CompletableFuture<T> begin() {
+        inFlight.incrementAndGet();
+        if (closed) {
+            finished();
+            throw new IllegalStateException("Sharded library is closed.");
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.whenComplete((value, failure) -> finished());
+        return result;
+    }
+    private void finished() {
+        if (inFlight.decrementAndGet() == 0 && closed) {
+            synchronized (inFlight) {
+                inFlight.notifyAll();
+            }
+        }
+    }
+    private static void submit(Shard shard, CompletableFuture<?> result, Runnable task) {
+        shard.submit(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+    public CompletableFuture<Void> addBook(Book book) {
+        CompletableFuture<Void> result = begin();
+        Shard shard = shards[shardOf(book.getId())];
+        submit(shard, result, () -> {
+            shard.library.addBook(book);
+            result.complete(null);
+        });
+        return result;
+    }
+    public CompletableFuture<Void> addMember(Member member) {
+        CompletableFuture<Void> result = begin();
+        Shard shard = shards[shardOf(member.getMemberId())];
+        submit(shard, result, () -> {
+            shard.library.addMember(member);
+            result.complete(null);
+        });
+        return result;
+    }
+    public CompletableFuture<Book> findBookById(int id) {
+        CompletableFuture<Book> result = begin();
+        Shard shard = shards[shardOf(id)];
+        submit(shard, result, () -> result.complete(shard.library.findBookById(id)));
+        return result;
+    }
+    public CompletableFuture<Member> findMemberById(int id) {
+        CompletableFuture<Member> result = begin();
+        Shard shard = shards[shardOf(id)];
+        submit(shard, result, () -> result.complete(shard.library.findMemberById(id)));
+        return result;
+    }
+    public CompletableFuture<Boolean> deleteBookById(int id) {
+        CompletableFuture<Boolean> result = begin();
+        Shard shard = shards[shardOf(id)];
+        submit(shard, result, () -> result.complete(shard.library.deleteBookById(id)));
+        return result;
+    }
+    public CompletableFuture<Boolean> removeMemberById(int id) {
+        CompletableFuture<Boolean> result = begin();
+        Shard home = shards[shardOf(id)];
+        submit(home, result, () -> {
+            if (home.library.findMemberById(id) == null || !home.removing.add(id)) {
+                result.complete(false);
+                return;
+            }
+            AtomicInteger remaining = new AtomicInteger(shards.length);
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            Runnable finish = () -> submit(home, result, () -> {
+                home.removing.remove(id);
+                if (failure.get() != null) {
+                    result.completeExceptionally(failure.get());
+                } else {
+                    result.complete(home.library.removeMemberById(id));
+                }
+            });
+            for (Shard shard : shards) {
+                if (shard == home) {
+                    if (remaining.decrementAndGet() == 0) {
+                        finish.run();
+                    }
+                    continue;
+                }
+                shard.submit(() -> {
+                    try {
+                        for (int bookId : shard.library.getBookIdsHeldBy(id)) {
+                            shard.library.returnBook(id, bookId);
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        finish.run();
+                    }
+                });
+            }
+        });
+        return result;
+    }
+    public CompletableFuture<Boolean> borrowBook(int memberId, int bookId) {
+        CompletableFuture<Boolean> result = begin();
+        Shard home = shards[shardOf(memberId)];
+        Shard owner = shards[shardOf(bookId)];
+        if (home == owner) {
+            submit(owner, result, () -> result.complete(owner.library.borrowBook(memberId, bookId)));
+            return result;
+        }
+        submit(home, result, () -> {
+            if (home.removing.contains(memberId) || home.library.findMemberById(memberId) == null) {
+                result.complete(false);
+                return;
+            }
+            submit(owner, result, () -> result.complete(owner.library.borrowBook(memberId, bookId)));
+        });
+        return result;
+    }
+    public CompletableFuture<Boolean> returnBook(int memberId, int bookId) {
+        CompletableFuture<Boolean> result = begin();
+        Shard owner = shards[shardOf(bookId)];
+        submit(owner, result, () -> result.complete(owner.library.returnBook(memberId, bookId)));
+        return result;
+    }
+    private <T> ArrayList<T> gather(Function<Shard, T> query) {
+        ArrayList<CompletableFuture<T>> futures = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            CompletableFuture<T> future = begin();
+            submit(shard, future, () -> future.complete(query.apply(shard)));
+            futures.add(future);
+        }
+        ArrayList<T> results = new ArrayList<>(shards.length);
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+    private interface ShardTask<T> {
+        T run(Shard shard) throws IOException;
+    }
+    private <T> ArrayList<T> gatherIO(ShardTask<T> task) throws IOException {
+        try {
+            return gather(shard -> {
+                try {
+                    return task.run(shard);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+    public int bookCount() {
+        int total = 0;
+        for (int count : gather(shard -> shard.library.bookCount())) {
+            total += count;
+        }
+        return total;
+    }
+    public int memberCount() {
+        int total = 0;
+        for (int count : gather(shard -> shard.library.getMembers().size())) {
+            total += count;
+        }
+        return total;
+    }
+    public int borrowRecordCount() {
+        int total = 0;
+        for (int count : gather(shard -> shard.library.borrowRecordCount())) {
+            total += count;
+        }
+        return total;
+    }
+    public int overdueLoanCount(long asOfMillis) {
+        int total = 0;
+        for (int count : gather(shard -> shard.library.overdueLoanCount(asOfMillis))) {
+            total += count;
+        }
+        return total;
+    }
+    public int[] getBookIdsHeldBy(int memberId) {
+        ArrayList<int[]> perShard = gather(shard -> shard.library.getBookIdsHeldBy(memberId));
+        int total = 0;
+        for (int[] ids : perShard) {
+            total += ids.length;
+        }
+        int[] held = new int[total];
+        int n = 0;
+        for (int[] ids : perShard) {
+            System.arraycopy(ids, 0, held, n, ids.length);
+            n += ids.length;
+        }
+        Arrays.sort(held);
+        return held;
+    }
+    private static final class Listing {
+        int[] keys = new int[16];
+        int[] values = new int[16];
+        String[] lines;
+        int size;
+        void add(int key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size++] = value;
+        }
+        void trim() {
+            keys = Arrays.copyOf(keys, size);
+            values = Arrays.copyOf(values, size);
+        }
+    }
+    private void mergeLines(Function<LibrarySnapshot, Listing> collect, LineSink sink) {
+        ArrayList<Listing> perShard = gather(shard -> collect.apply(shard.library.snapshot()));
+        int[][] keys = new int[shards.length][];
+        int[][] values = new int[shards.length][];
+        for (int s = 0; s < shards.length; s++) {
+            Listing listing = perShard.get(s);
+            listing.trim();
+            keys[s] = listing.keys;
+            values[s] = new int[listing.size];
+            for (int i = 0; i < listing.size; i++) {
+                values[s][i] = s << 24 | i;
+            }
+        }
+        BorrowLedger.mergeOrdered(keys, values, (id, slot) -> sink.line(perShard.get(slot >>> 24).lines[slot & 0xFFFFFF]));
+    }
+    private static <T> Listing linesById(BiConsumer<LibrarySnapshot, Consumer<T>> forEachById, LibrarySnapshot snapshot, ToIntFunction<T> idOf) {
+        Listing listing = new Listing();
+        ArrayList<String> lines = new ArrayList<>();
+        forEachById.accept(snapshot, item -> {
+            listing.add(idOf.applyAsInt(item), lines.size());
+            lines.add(item.toString());
+        });
+        listing.lines = lines.toArray(new String[0]);
+        return listing;
+    }
+    public void streamSortedBooks(LineSink sink) {
+        sink.line("Sorted Books List:");
+        mergeLines(snapshot -> linesById(LibrarySnapshot::forEachBookById, snapshot, Book::getId), sink);
+    }
+    public String displaySortedBooks() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedBooks(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+    public void streamSortedMembers(LineSink sink) {
+        sink.line("Sorted Members List:");
+        mergeLines(snapshot -> linesById(LibrarySnapshot::forEachMemberById, snapshot, Member::getMemberId), sink);
+    }
+    public String displaySortedMembers() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedMembers(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+    private void mergePairs(Function<LibrarySnapshot, Listing> collect, IntPairConsumer action) {
+        ArrayList<Listing> perShard = gather(shard -> collect.apply(shard.library.snapshot()));
+        int[][] keys = new int[shards.length][];
+        int[][] values = new int[shards.length][];
+        for (int s = 0; s < shards.length; s++) {
+            Listing listing = perShard.get(s);
+            listing.trim();
+            keys[s] = listing.keys;
+            values[s] = listing.values;
+        }
+        BorrowLedger.mergeOrdered(keys, values, action);
+    }
+    public void forEachBorrowRecord(IntPairConsumer action) {
+        mergePairs(snapshot -> {
+            Listing listing = new Listing();
+            snapshot.forEachBorrowRecord(listing::add);
+            return listing;
+        }, action);
+    }
+    public void forEachReturnRecord(IntPairConsumer action) {
+        mergePairs(snapshot -> {
+            Listing listing = new Listing();
+            snapshot.forEachReturnRecord(listing::add);
+            return listing;
+        }, action);
+    }
+    public void streamSortedBorrowRecords(LineSink sink) {
+        sink.line("Sorted Borrow Records (Book ID -> Member ID):");
+        forEachBorrowRecord((bookId, memberId) -> sink.line("Book ID: " + bookId + ", Member ID: " + memberId));
+    }
+    public String displaySortedBorrowRecords() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedBorrowRecords(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+    public void streamSortedReturnRecords(LineSink sink) {
+        sink.line("Sorted Return Records (Member ID ===-> Book ID):");
+        forEachReturnRecord((memberId, bookId) -> sink.line("Member ID: " + memberId + ", Book ID: " + bookId));
+    }
+    public String displaySortedReturnRecords() {
+        StringBuilder sb = new StringBuilder();
+        streamSortedReturnRecords(line -> sb.append(line).append("\n"));
+        return sb.toString();
+    }
+    public void addListener(LibraryListener listener) {
+        for (Shard shard : shards) {
+            shard.library.addListener(listener);
+        }
+    }
+    public void attachListener(LibraryListener listener) {
+        gather(shard -> {
+            shard.library.attachListener(listener);
+            return null;
+        });
+    }
+    public void removeListener(LibraryListener listener) {
+        for (Shard shard : shards) {
+            shard.library.removeListener(listener);
+        }
+    }
+    private String layout() {
+        return (partitioning == BY_RANGE ? "range " + rangeWidth : "hash") + " " + shards.length;
+    }
+    public synchronized String attach(Path directory, long checkpointIntervalMillis) throws IOException {
+        for (Shard shard : shards) {
+            if (shard.store != null) {
+                throw new IllegalStateException("Sharded library is already attached to a store.");
+            }
+        }
+        Files.createDirectories(directory);
+        Path layoutFile = directory.resolve("shards");
+        if (Files.exists(layoutFile)) {
+            String stored = new String(Files.readAllBytes(layoutFile), StandardCharsets.UTF_8).trim();
+            if (!stored.equals(layout())) {
+                throw new IOException(directory + " holds a library sharded as \"" + stored + "\", not \"" + layout() + "\".");
+            }
+        } else {
+            Files.write(layoutFile, layout().getBytes(StandardCharsets.UTF_8));
+        }
+        ArrayList<String> reports = gatherIO(shard -> {
+            LibraryStore store = new LibraryStore(directory.resolve("shard-" + shard.index));
+            String report = store.attach(shard.library, checkpointIntervalMillis);
+            shard.store = store;
+            return "Shard " + shard.index + ": " + report;
+        });
+        return String.join("\n", reports);
+    }
+    public void checkpoint() throws IOException {
+        gatherIO(shard -> {
+            if (shard.store != null) {
+                shard.store.checkpoint();
+            }
+            return null;
+        });
+    }
+    public void sync() throws IOException {
+        gatherIO(shard -> {
+            if (shard.store != null) {
+                shard.store.sync();
+            }
+            return null;
+        });
+    }
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        synchronized (inFlight) {
+            while (inFlight.get() > 0) {
+                try {
+                    inFlight.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        IOException failure = null;
+        for (Shard shard : shards) {
+            try {
+                if (shard.store != null) {
+                    shard.store.close();
+                    shard.store = null;
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            try {
+                shard.stop();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
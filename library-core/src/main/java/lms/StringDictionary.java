@@ -0,0 +1,376 @@
+package lms;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+class StringDictionary {
+    static final int NULL = -1;
+    private static final int PAGE_SIZE = 1 << 16;
+    private static final int UTF8 = 0x80000000;
+    private static final long FREE = -1L;
+    private static final int CACHE_SIZE = 1 << 14;
+    private static final int GENERATION_PAGE = 1 << 12;
+    private static final class Storage {
+        final byte[][] pages;
+        final long[] locations;
+        final int[] lengths;
+        final AtomicIntegerArray[] generations;
+        Storage(byte[][] pages, long[] locations, int[] lengths, AtomicIntegerArray[] generations) {
+            this.pages = pages;
+            this.locations = locations;
+            this.lengths = lengths;
+            this.generations = generations;
+        }
+        int generation(int code) {
+            return generations[code / GENERATION_PAGE].get(code % GENERATION_PAGE);
+        }
+    }
+    private static final class Decoded {
+        final int code;
+        final int generation;
+        final String value;
+        Decoded(int code, int generation, String value) {
+            this.code = code;
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private byte[][] pages = new byte[4][];
+    private long[] locations = new long[1024];
+    private int[] lengths = new int[1024];
+    private AtomicIntegerArray[] generations = {new AtomicIntegerArray(GENERATION_PAGE)};
+    private volatile Storage published = new Storage(pages, locations, lengths, generations);
+    private final AtomicReferenceArray<Decoded> decoded = new AtomicReferenceArray<>(CACHE_SIZE);
+    private int[] hashes = new int[1024];
+    private AtomicIntegerArray refs = new AtomicIntegerArray(1024);
+    private int[] slots = new int[2048];
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+    private int count;
+    private int pageCount;
+    private int openPage = -1;
+    private int pageUsed;
+    private long storedBytes;
+    private long deadBytes;
+    public int intern(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        int hash = value.hashCode();
+        lock.readLock().lock();
+        try {
+            int code = find(value, hash);
+            if (code >= 0) {
+                refs.incrementAndGet(code);
+                return code;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            int code = find(value, hash);
+            if (code < 0) {
+                code = add(value, hash);
+            }
+            refs.incrementAndGet(code);
+            return code;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void release(int code) {
+        if (code == NULL) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (locations[code] == FREE) {
+                throw new IllegalStateException("String code " + code + " is already free.");
+            }
+            if (refs.decrementAndGet(code) == 0) {
+                free(code);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public int generation(int code) {
+        return code == NULL ? 0 : published.generation(code);
+    }
+    public int codeOf(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        lock.readLock().lock();
+        try {
+            int code = find(value, value.hashCode());
+            return code >= 0 ? code : NULL;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public String get(int code) {
+        if (code == NULL) {
+            return null;
+        }
+        Storage storage = published;
+        return decode(storage, code, storage.generation(code));
+    }
+    public String get(int code, int generation) {
+        if (code == NULL) {
+            return null;
+        }
+        Storage storage = published;
+        if (storage.generation(code) != generation) {
+            return null;
+        }
+        String value = decode(storage, code, generation);
+        return storage.generation(code) == generation ? value : null;
+    }
+    private String decode(Storage storage, int code, int generation) {
+        int slot = code & (CACHE_SIZE - 1);
+        Decoded cached = decoded.get(slot);
+        if (cached != null && cached.code == code && cached.generation == generation) {
+            return cached.value;
+        }
+        long location = storage.locations[code];
+        int length = storage.lengths[code];
+        int size = length & ~UTF8;
+        int pageIndex = (int) (location >>> 32);
+        if (location == FREE || pageIndex >= storage.pages.length) {
+            return null;
+        }
+        byte[] page = storage.pages[pageIndex];
+        if (page == null || (int) location + size > page.length) {
+            return null;
+        }
+        String value = new String(page, (int) location, size, (length & UTF8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        decoded.set(slot, new Decoded(code, generation, value));
+        return value;
+    }
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - freeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public long storedBytes() {
+        lock.readLock().lock();
+        try {
+            return storedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public long deadBytes() {
+        lock.readLock().lock();
+        try {
+            return deadBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (deadBytes == 0 || deadBytes * 4 < storedBytes) {
+                return;
+            }
+            byte[][] oldPages = pages;
+            long[] oldLocations = locations;
+            pages = new byte[4][];
+            locations = new long[oldLocations.length];
+            pageCount = 0;
+            openPage = -1;
+            pageUsed = 0;
+            for (int code = 0; code < count; code++) {
+                long old = oldLocations[code];
+                if (old == FREE) {
+                    locations[code] = FREE;
+                    continue;
+                }
+                int length = lengths[code] & ~UTF8;
+                long location = reserve(length);
+                System.arraycopy(oldPages[(int) (old >>> 32)], (int) old, pages[(int) (location >>> 32)], (int) location, length);
+                locations[code] = location;
+            }
+            deadBytes = 0;
+            published = new Storage(pages, locations, lengths, generations);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    private void free(int code) {
+        int length = lengths[code] & ~UTF8;
+        removeSlot(code);
+        locations[code] = FREE;
+        storedBytes -= length;
+        deadBytes += length;
+        generations[code / GENERATION_PAGE].incrementAndGet(code % GENERATION_PAGE);
+        Decoded cached = decoded.get(code & (CACHE_SIZE - 1));
+        if (cached != null && cached.code == code) {
+            decoded.compareAndSet(code & (CACHE_SIZE - 1), cached, null);
+        }
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+    private void removeSlot(int code) {
+        int mask = slots.length - 1;
+        int i = mix(hashes[code]) & mask;
+        while (slots[i] != code + 1) {
+            i = (i + 1) & mask;
+        }
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (slots[j] == 0) {
+                break;
+            }
+            int home = mix(hashes[slots[j] - 1]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = 0;
+    }
+    private int find(String value, int hash) {
+        int mask = slots.length - 1;
+        byte[] utf8 = null;
+        for (int i = mix(hash) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int code = slots[i] - 1;
+            if (hashes[code] != hash) {
+                continue;
+            }
+            int length = lengths[code];
+            long location = locations[code];
+            byte[] page = pages[(int) (location >>> 32)];
+            int offset = (int) location;
+            if ((length & UTF8) == 0) {
+                if (length == value.length() && matchesLatin1(page, offset, value)) {
+                    return code;
+                }
+            } else {
+                if (utf8 == null) {
+                    utf8 = value.getBytes(StandardCharsets.UTF_8);
+                }
+                if ((length & ~UTF8) == utf8.length && Arrays.equals(page, offset, offset + utf8.length, utf8, 0, utf8.length)) {
+                    return code;
+                }
+            }
+        }
+        return -1;
+    }
+    private static boolean matchesLatin1(byte[] page, int offset, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if ((page[offset + i] & 0xFF) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private int add(String value, int hash) {
+        byte[] encoded = null;
+        int length = value.length();
+        boolean latin1 = isLatin1(value);
+        if (!latin1) {
+            encoded = value.getBytes(StandardCharsets.UTF_8);
+            length = encoded.length;
+        }
+        long location = reserve(length);
+        byte[] page = pages[(int) (location >>> 32)];
+        int offset = (int) location;
+        if (latin1) {
+            for (int i = 0; i < length; i++) {
+                page[offset + i] = (byte) value.charAt(i);
+            }
+        } else {
+            System.arraycopy(encoded, 0, page, offset, length);
+        }
+        int code;
+        if (freeCount > 0) {
+            code = freeCodes[--freeCount];
+        } else {
+            code = count++;
+            if (code == lengths.length) {
+                locations = Arrays.copyOf(locations, code * 2);
+                lengths = Arrays.copyOf(lengths, code * 2);
+                hashes = Arrays.copyOf(hashes, code * 2);
+                AtomicIntegerArray grown = new AtomicIntegerArray(code * 2);
+                for (int i = 0; i < code; i++) {
+                    grown.set(i, refs.get(i));
+                }
+                refs = grown;
+            }
+            if (code / GENERATION_PAGE == generations.length) {
+                generations = Arrays.copyOf(generations, generations.length + 1);
+                generations[generations.length - 1] = new AtomicIntegerArray(GENERATION_PAGE);
+            }
+        }
+        locations[code] = location;
+        lengths[code] = latin1 ? length : length | UTF8;
+        hashes[code] = hash;
+        storedBytes += length;
+        if (count * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            insert(slots, code);
+        }
+        published = new Storage(pages, locations, lengths, generations);
+        return code;
+    }
+    private long reserve(int length) {
+        if (length > PAGE_SIZE / 4) {
+            return (long) newPage(new byte[length]) << 32;
+        }
+        if (openPage < 0 || pageUsed + length > PAGE_SIZE) {
+            openPage = newPage(new byte[PAGE_SIZE]);
+            pageUsed = 0;
+        }
+        long location = ((long) openPage << 32) | pageUsed;
+        pageUsed += length;
+        return location;
+    }
+    private int newPage(byte[] page) {
+        if (pageCount == pages.length) {
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        pages[pageCount] = page;
+        return pageCount++;
+    }
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+        for (int code = 0; code < count; code++) {
+            if (locations[code] != FREE) {
+                insert(table, code);
+            }
+        }
+        slots = table;
+    }
+    private void insert(int[] table, int code) {
+        int mask = table.length - 1;
+        int i = mix(hashes[code]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = code + 1;
+    }
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
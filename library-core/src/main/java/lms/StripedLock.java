@@ -0,0 +1,21 @@
+package lms;
+import java.util.concurrent.locks.*;
+class StripedLock {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    public StripedLock(int concurrency) {
+        int n = 1;
+        while (n < concurrency) {
+            n <<= 1;
+        }
+        stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = n - 1;
+    }
+    public ReentrantLock forKey(int key) {
+        int h = key * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
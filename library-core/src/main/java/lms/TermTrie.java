@@ -0,0 +1,120 @@
+package lms;
+import java.util.*;
+import java.util.function.*;
+class TermTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private final Node root = new Node();
+    private static final class Node {
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        int termId = -1;
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+        Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newLabels[i] = c;
+            newChildren[i] = new Node();
+            System.arraycopy(labels, i, newLabels, i + 1, labels.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[i];
+        }
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i < 0) {
+                return;
+            }
+            if (labels.length == 1) {
+                labels = NO_LABELS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+    public void insert(String term, int termId) {
+        Node node = root;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.childOrCreate(term.charAt(i));
+        }
+        node.termId = termId;
+    }
+    public void remove(String term) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].child(term.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        path[term.length()].termId = -1;
+        for (int i = term.length(); i > 0 && path[i].termId < 0 && path[i].children.length == 0; i--) {
+            path[i - 1].removeChild(term.charAt(i - 1));
+        }
+    }
+    public void collectPrefix(String prefix, int limit, IntConsumer termIds) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, new int[] {limit}, termIds);
+        }
+    }
+    private void collect(Node node, int[] remaining, IntConsumer termIds) {
+        if (node.termId >= 0 && remaining[0]-- > 0) {
+            termIds.accept(node.termId);
+        }
+        for (int i = 0; i < node.children.length && remaining[0] > 0; i++) {
+            collect(node.children[i], remaining, termIds);
+        }
+    }
+    public void collectFuzzy(String term, int maxEdits, IntConsumer termIds) {
+        int[][] rows = new int[term.length() + maxEdits + 2][term.length() + 1];
+        for (int i = 0; i <= term.length(); i++) {
+            rows[0][i] = i;
+        }
+        for (int i = 0; i < root.children.length; i++) {
+            fuzzy(root.children[i], root.labels[i], term, rows, 1, maxEdits, termIds);
+        }
+    }
+    private void fuzzy(Node node, char c, String term, int[][] rows, int depth, int maxEdits, IntConsumer termIds) {
+        int[] previous = rows[depth - 1];
+        int[] row = rows[depth];
+        row[0] = previous[0] + 1;
+        int best = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int cost = term.charAt(i - 1) == c ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            best = Math.min(best, row[i]);
+        }
+        if (node.termId >= 0 && row[row.length - 1] <= maxEdits) {
+            termIds.accept(node.termId);
+        }
+        if (best <= maxEdits && depth + 1 < rows.length) {
+            for (int i = 0; i < node.children.length; i++) {
+                fuzzy(node.children[i], node.labels[i], term, rows, depth + 1, maxEdits, termIds);
+            }
+        }
+    }
+}
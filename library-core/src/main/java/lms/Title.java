@@ -0,0 +1,99 @@
+package lms;
+import java.util.*;
+import java.util.concurrent.*;
+class Title {
+    static final int REFUSED = -1;
+    static final int HELD = 0;
+    static final int LENT = 1;
+    static final class Hold {
+        final int memberId;
+        Hold(int memberId) {
+            this.memberId = memberId;
+        }
+    }
+    private final int titleId;
+    private final String title;
+    private final String author;
+    final IntHashSet copyIds = new IntHashSet();
+    private final IntHashSet freeCopies = new IntHashSet();
+    private final ArrayDeque<Integer> freeOrder = new ArrayDeque<>();
+    final Queue<Hold> holds = new Queue<>();
+    final ConcurrentHashMap<Integer, Hold> holdsByMember = new ConcurrentHashMap<>();
+    public Title(int titleId, String title, String author) {
+        this.titleId = titleId;
+        this.title = title;
+        this.author = author;
+    }
+    public int getTitleId() {
+        return titleId;
+    }
+    public String getTitle() {
+        return title;
+    }
+    public String getAuthor() {
+        return author;
+    }
+    public int availableCopies() {
+        synchronized (freeCopies) {
+            return freeCopies.size();
+        }
+    }
+    public int holdCount() {
+        return holdsByMember.size();
+    }
+    void release(int copyId) {
+        synchronized (freeCopies) {
+            if (freeCopies.add(copyId)) {
+                freeOrder.addLast(copyId);
+            }
+        }
+    }
+    boolean claim(int copyId) {
+        synchronized (freeCopies) {
+            if (!freeCopies.remove(copyId)) {
+                return false;
+            }
+            if (freeOrder.size() > 2 * freeCopies.size() + 16) {
+                freeOrder.removeIf(id -> !freeCopies.contains(id));
+            }
+            return true;
+        }
+    }
+    Integer takeFreeCopy() {
+        synchronized (freeCopies) {
+            Integer copyId;
+            while ((copyId = freeOrder.pollFirst()) != null) {
+                if (freeCopies.remove(copyId)) {
+                    return copyId;
+                }
+            }
+            return null;
+        }
+    }
+    boolean placeHold(int memberId) {
+        Hold hold = new Hold(memberId);
+        if (holdsByMember.putIfAbsent(memberId, hold) != null) {
+            return false;
+        }
+        holds.enqueue(hold);
+        return true;
+    }
+    boolean cancelHold(int memberId) {
+        return holdsByMember.remove(memberId) != null;
+    }
+    Hold nextHold() {
+        Hold hold;
+        while ((hold = holds.peek()) != null && holdsByMember.get(hold.memberId) != hold) {
+            holds.dequeue();
+        }
+        return hold;
+    }
+    void fillHold(Hold hold) {
+        holds.dequeue();
+        holdsByMember.remove(hold.memberId, hold);
+    }
+    public String toString() {
+        return "Title ID: " + titleId + ", Title: " + title + ", Author: " + author
+            + ", Copies: " + availableCopies() + "/" + copyIds.size() + " available, Holds: " + holdsByMember.size();
+    }
+}
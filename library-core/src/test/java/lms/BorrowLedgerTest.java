@@ -0,0 +1,78 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+class BorrowLedgerTest {
+    private static List<int[]> collect(BorrowLedger ledger, int from, int to) {
+        ArrayList<int[]> pairs = new ArrayList<>();
+        ledger.forEachInRange(from, to, (bookId, memberId) -> pairs.add(new int[] {bookId, memberId}));
+        return pairs;
+    }
+    private static void assertMatches(NavigableMap<Integer, Integer> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getKey(), actual.get(i)[0]);
+            assertEquals((int) entry.getValue(), actual.get(i)[1]);
+            i++;
+        }
+    }
+    @Test
+    void rangeQueriesMatchASortedMapAcrossDeltaMerges() {
+        BorrowLedger ledger = new BorrowLedger(8);
+        TreeMap<Integer, Integer> reference = new TreeMap<>();
+        SplittableRandom random = new SplittableRandom(11);
+        for (int round = 0; round < 20000; round++) {
+            int bookId = random.nextInt(-5000, 5000);
+            int memberId = random.nextInt(100);
+            if (random.nextInt(3) == 0) {
+                Integer holder = reference.get(bookId);
+                boolean removed = ledger.remove(bookId, memberId);
+                assertEquals(holder != null && holder == memberId, removed);
+                if (removed) {
+                    reference.remove(bookId);
+                }
+            } else {
+                assertEquals(reference.putIfAbsent(bookId, memberId) == null, ledger.putIfAbsent(bookId, memberId));
+            }
+        }
+        assertEquals(reference.size(), ledger.size());
+        assertMatches(reference, collect(ledger, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertMatches(reference.subMap(-100, true, 250, true), collect(ledger, -100, 250));
+        assertMatches(reference.subMap(7, true, 7, true), collect(ledger, 7, 7));
+        assertTrue(collect(ledger, 10, 9).isEmpty());
+        int[][] arrays = ledger.toArrays();
+        assertEquals(reference.size(), arrays[0].length);
+        assertEquals((int) reference.firstKey(), arrays[0][0]);
+        assertEquals((int) reference.lastKey(), arrays[0][arrays[0].length - 1]);
+    }
+    @Test
+    void snapshotRangesIgnoreLaterChanges() {
+        BorrowLedger ledger = new BorrowLedger(4);
+        TreeMap<Integer, Integer> reference = new TreeMap<>();
+        for (int i = 0; i < 3000; i++) {
+            ledger.putIfAbsent(i * 3, i % 17);
+            reference.put(i * 3, i % 17);
+        }
+        BorrowLedger.View view = ledger.snapshot();
+        for (int i = 0; i < 3000; i += 2) {
+            assertTrue(ledger.remove(i * 3, i % 17));
+        }
+        for (int i = 0; i < 500; i++) {
+            ledger.putIfAbsent(i * 3 + 1, 99);
+        }
+        assertEquals(3000, view.size());
+        ArrayList<int[]> seen = new ArrayList<>();
+        view.forEachInRange(300, 600, (bookId, memberId) -> seen.add(new int[] {bookId, memberId}));
+        assertMatches(reference.subMap(300, true, 600, true), seen);
+        int[] last = {Integer.MIN_VALUE};
+        int[] count = new int[1];
+        view.forEachOrdered((bookId, memberId) -> {
+            assertTrue(bookId > last[0]);
+            last[0] = bookId;
+            count[0]++;
+        });
+        assertEquals(3000, count[0]);
+        assertEquals(1500 + 500, ledger.size());
+    }
+}
@@ -0,0 +1,49 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class BulkImporterTest {
+    @TempDir
+    Path dir;
+    private Path write(String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+    @Test
+    void csvHeaderIsSkippedAndQuotedFieldsAreUnescaped() throws IOException {
+        Library library = new Library();
+        Path file = write("books.csv", "id,title,author\r\n1,\"Dune, Part \"\"One\"\"\",Herbert\n\n2,Emma,Austen\n2,Again,Dup\nx7,Bad,Id\n");
+        ImportReport report = new BulkImporter(library).importBooks(file);
+        assertEquals(4, report.getRows());
+        assertEquals(2, report.getAccepted());
+        assertEquals(2, report.getRejected());
+        assertEquals("Dune, Part \"One\"", library.findBookById(1).getTitle());
+        assertEquals("Austen", library.findBookById(2).getAuthor());
+        assertTrue(report.toString().contains("line 5: duplicate id"));
+        assertTrue(report.toString().contains("line 6: invalid id"));
+    }
+    @Test
+    void malformedIdOnTheFirstLineIsRejectedNotSkipped() throws IOException {
+        Library library = new Library();
+        Path file = write("books.csv", "1x,Lost,Nobody\n2,Kept,Somebody\n");
+        ImportReport report = new BulkImporter(library).importBooks(file);
+        assertEquals(2, report.getRows());
+        assertEquals(1, report.getAccepted());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.toString().contains("line 1: invalid id"));
+    }
+    @Test
+    void ndjsonDecodesEscapesAndSurrogatePairs() throws IOException {
+        Library library = new Library();
+        Path file = write("members.ndjson",
+            "{\"id\": 5, \"name\": \"Smile \\uD83D\\uDE00 \\u00e9\\n\"}\n{\"memberId\":6,\"memberName\":\"Plain\",\"extra\":true}\n{\"id\":7}\n");
+        ImportReport report = new BulkImporter(library).importMembers(file);
+        assertEquals(3, report.getRows());
+        assertEquals(2, report.getAccepted());
+        assertEquals("Smile 😀 é\n", library.findMemberById(5).getMemberName());
+        assertEquals("Plain", library.findMemberById(6).getMemberName());
+        assertTrue(report.toString().contains("line 3: expected 2 fields"));
+    }
+}
@@ -0,0 +1,73 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+class CountingHeapTest {
+    private static List<int[]> top(CountingHeap heap, int k) {
+        List<int[]> result = new ArrayList<>();
+        heap.top(k, (key, count) -> result.add(new int[] {key, count}));
+        return result;
+    }
+    @Test
+    void equalCountsComeOutBySmallerKeyFirst() {
+        CountingHeap heap = new CountingHeap();
+        for (int key : new int[] {9, 4, 7, 1, 12}) {
+            heap.add(key, 2);
+        }
+        heap.add(30, 5);
+        heap.add(-3, 1);
+        List<int[]> top = top(heap, 4);
+        assertArrayEquals(new int[] {30, 5}, top.get(0));
+        assertArrayEquals(new int[] {1, 2}, top.get(1));
+        assertArrayEquals(new int[] {4, 2}, top.get(2));
+        assertArrayEquals(new int[] {7, 2}, top.get(3));
+        assertEquals(7, top(heap, 100).size());
+        assertTrue(top(heap, 0).isEmpty());
+    }
+    @Test
+    void entriesLeaveWhenTheirCountReachesZero() {
+        CountingHeap heap = new CountingHeap();
+        heap.add(5, -1);
+        assertEquals(0, heap.size());
+        heap.add(5, 3);
+        heap.add(6, 1);
+        heap.add(5, -3);
+        assertEquals(1, heap.size());
+        assertEquals(0, heap.count(5));
+        heap.add(6, -4);
+        assertEquals(0, heap.size());
+        assertTrue(top(heap, 3).isEmpty());
+    }
+    @Test
+    void topMatchesASortedReferenceUnderRandomDeltas() {
+        CountingHeap heap = new CountingHeap();
+        TreeMap<Integer, Integer> counts = new TreeMap<>();
+        SplittableRandom random = new SplittableRandom(29);
+        for (int round = 0; round < 50000; round++) {
+            int key = random.nextInt(-200, 200);
+            int delta = random.nextInt(4) == 0 ? -random.nextInt(1, 4) : random.nextInt(1, 3);
+            heap.add(key, delta);
+            int count = counts.getOrDefault(key, 0);
+            if (count > 0 || delta > 0) {
+                count += delta;
+                if (count > 0) {
+                    counts.put(key, count);
+                } else {
+                    counts.remove(key);
+                }
+            }
+            if (round % 499 == 0) {
+                List<int[]> expected = new ArrayList<>();
+                counts.forEach((k, c) -> expected.add(new int[] {k, c}));
+                expected.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(a[0], b[0]));
+                int k = random.nextInt(1, 40);
+                List<int[]> actual = top(heap, k);
+                assertEquals(Math.min(k, expected.size()), actual.size());
+                for (int i = 0; i < actual.size(); i++) {
+                    assertArrayEquals(expected.get(i), actual.get(i));
+                }
+                assertEquals(counts.size(), heap.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class IdHistoryTest {
+    @TempDir
+    Path dir;
+    private static int[] readAll(IdHistory history) throws IOException {
+        int[] ids = new int[(int) (history.nextSequence() - history.firstSequence())];
+        assertEquals(ids.length, history.read(history.firstSequence(), ids, 0, ids.length));
+        return ids;
+    }
+    @Test
+    void spilledSegmentsReadBackInOrder() throws IOException {
+        IdHistory history = new IdHistory("books", 8192);
+        history.spillTo(dir, 1 << 20);
+        for (int i = 0; i < 40000; i++) {
+            history.append(i);
+        }
+        int[] ids = readAll(history);
+        assertEquals(40000, ids.length);
+        history.flush();
+        assertArrayEquals(ids, readAll(history));
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, ids[i]);
+        }
+    }
+    @Test
+    void existingSegmentsSurviveARestart() throws IOException {
+        IdHistory history = new IdHistory("books", 8192);
+        history.spillTo(dir, 1 << 20);
+        for (int i = 0; i < 20000; i++) {
+            history.append(i);
+        }
+        history.flush();
+        assertEquals(0, history.firstSequence());
+        IdHistory restarted = new IdHistory("books", 8192);
+        restarted.append(-1);
+        restarted.spillTo(dir, 1 << 20);
+        restarted.append(-2);
+        int[] ids = readAll(restarted);
+        assertEquals(12290, ids.length);
+        for (int i = 0; i < 12288; i++) {
+            assertEquals(i, ids[i]);
+        }
+        assertEquals(-1, ids[12288]);
+        assertEquals(-2, ids[12289]);
+    }
+    @Test
+    void retentionDropsTheOldestSegments() throws IOException {
+        IdHistory history = new IdHistory("books", 8192);
+        history.spillTo(dir, 8192);
+        for (int i = 0; i < 40000; i++) {
+            history.append(i);
+        }
+        history.flush();
+        int[] ids = readAll(history);
+        assertEquals(40000 - history.firstSequence(), ids.length);
+        assertEquals(history.firstSequence(), ids[0]);
+        assertTrue(Files.exists(dir.resolve("books-6.seg")));
+        assertTrue(Files.exists(dir.resolve("books-7.seg")));
+        assertFalse(Files.exists(dir.resolve("books-5.seg")));
+    }
+    @Test
+    void readsRaceAppendsAndRetention() throws Exception {
+        IdHistory history = new IdHistory("books", 8192);
+        history.spillTo(dir, 16384);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 400000; i++) {
+                history.append(i);
+            }
+        });
+        writer.start();
+        int[] ids = new int[20000];
+        while (writer.isAlive()) {
+            int n = history.read(0, ids, 0, ids.length);
+            for (int i = 1; i < n; i++) {
+                assertTrue(ids[i] > ids[i - 1]);
+            }
+        }
+        writer.join();
+        history.flush();
+        int[] all = readAll(history);
+        for (int i = 0; i < all.length; i++) {
+            assertEquals(history.firstSequence() + i, all[i]);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+class LibraryCommandTest {
+    @Test
+    void parsesSpaceAndTabSeparatedCommands() {
+        LibraryCommand add = LibraryCommand.parse("add_book 7 The Left Hand of Darkness");
+        assertEquals(LibraryCommand.ADD_BOOK, add.type);
+        assertEquals(7, add.first);
+        assertEquals("The", add.text);
+        assertEquals("Left Hand of Darkness", add.detail);
+        LibraryCommand tabbed = LibraryCommand.parse("ADD_BOOK\t8\tThe Dispossessed\tUrsula K. Le Guin");
+        assertEquals("The Dispossessed", tabbed.text);
+        assertEquals("Ursula K. Le Guin", tabbed.detail);
+        LibraryCommand borrow = LibraryCommand.parse("  BORROW 3 8  ");
+        assertEquals(LibraryCommand.BORROW, borrow.type);
+        assertEquals(3, borrow.first);
+        assertEquals(8, borrow.second);
+        LibraryCommand title = LibraryCommand.parse("ADD_TITLE\t100\tDune\tHerbert\t50, 51,52");
+        assertArrayEquals(new int[] {50, 51, 52}, title.copies);
+        assertTrue(title.changesCatalog());
+        assertFalse(LibraryCommand.parse("FIND_BOOK 8").changesCatalog());
+        assertFalse(borrow.changesCatalog());
+    }
+    @Test
+    void rejectsMalformedCommands() {
+        assertEquals("Unknown command: LEND", assertThrows(IllegalArgumentException.class, () -> LibraryCommand.parse("LEND 1 2")).getMessage());
+        assertEquals("BORROW expects 2 arguments.", assertThrows(IllegalArgumentException.class, () -> LibraryCommand.parse("BORROW 1")).getMessage());
+        assertEquals("Invalid ID: x", assertThrows(IllegalArgumentException.class, () -> LibraryCommand.parse("FIND_BOOK x")).getMessage());
+        assertEquals("Missing title.", assertThrows(IllegalArgumentException.class, () -> LibraryCommand.parse("ADD_BOOK\t1\t \tAuthor")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> LibraryCommand.parse("ADD_TITLE\t1\tT\tA\t1,,2"));
+    }
+}
@@ -0,0 +1,200 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.Test;
+class LibraryConcurrencyTest {
+    private static final int BOOKS = 256;
+    private static final int MEMBERS = 64;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50000;
+    @Test
+    void concurrentDesksNeverLendABookTwice() throws Exception {
+        Library library = new Library();
+        for (int i = 0; i < BOOKS; i++) {
+            library.addBook(new Book(i, "Title " + i, "Author " + (i % 10)));
+        }
+        for (int i = 0; i < MEMBERS; i++) {
+            library.addMember(new Member(i, "Member " + i));
+        }
+        AtomicIntegerArray holders = new AtomicIntegerArray(BOOKS);
+        AtomicInteger doubleLoans = new AtomicInteger();
+        AtomicInteger failedReturns = new AtomicInteger();
+        runDesks(seed -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int round = 0; round < ROUNDS; round++) {
+                int book = random.nextInt(BOOKS);
+                int member = random.nextInt(MEMBERS);
+                if (library.borrowBook(member, book)) {
+                    if (!holders.compareAndSet(book, 0, member + 1)) {
+                        doubleLoans.incrementAndGet();
+                    }
+                    holders.set(book, 0);
+                    if (!library.returnBook(member, book)) {
+                        failedReturns.incrementAndGet();
+                    }
+                }
+            }
+        });
+        assertEquals(0, doubleLoans.get());
+        assertEquals(0, failedReturns.get());
+        assertEquals(0, library.borrowRecordCount());
+        for (int i = 0; i < MEMBERS; i++) {
+            assertEquals(0, library.findMemberById(i).borrowedCount());
+        }
+    }
+    @Test
+    void ledgerAndMemberLoansAgreeAfterContention() throws Exception {
+        Library library = new Library();
+        for (int i = 0; i < BOOKS; i++) {
+            library.addBook(new Book(i, "Title " + i, "Author " + (i % 10)));
+        }
+        for (int i = 0; i < MEMBERS; i++) {
+            library.addMember(new Member(i, "Member " + i));
+        }
+        runDesks(seed -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int round = 0; round < ROUNDS; round++) {
+                int book = random.nextInt(BOOKS);
+                int member = random.nextInt(MEMBERS);
+                if (random.nextBoolean()) {
+                    library.borrowBook(member, book);
+                } else {
+                    library.returnBook(member, book);
+                }
+            }
+        });
+        Map<Integer, Integer> ledger = new HashMap<>();
+        library.forEachBorrowRecord((bookId, memberId) -> assertNull(ledger.put(bookId, memberId)));
+        assertEquals(library.borrowRecordCount(), ledger.size());
+        int held = 0;
+        for (int i = 0; i < MEMBERS; i++) {
+            Member member = library.findMemberById(i);
+            for (int bookId : member.getBorrowedBookIds()) {
+                assertEquals(Integer.valueOf(i), ledger.get(bookId));
+            }
+            assertArrayEquals(sorted(member.getBorrowedBookIds()), sorted(library.getBookIdsHeldBy(i)));
+            held += member.borrowedCount();
+        }
+        assertEquals(ledger.size(), held);
+        long[] previous = {Long.MIN_VALUE};
+        int[] returns = new int[1];
+        library.snapshot().forEachReturnRecord((memberId, bookId) -> {
+            long key = ((long) memberId << 32) | (bookId & 0xFFFFFFFFL);
+            assertTrue(key > previous[0]);
+            previous[0] = key;
+            assertEquals(Integer.valueOf(memberId), ledger.get(bookId));
+            returns[0]++;
+        });
+        assertEquals(ledger.size(), returns[0]);
+    }
+    @Test
+    void titleAvailabilityTracksDirectAndTitleLoans() throws Exception {
+        Library library = new Library();
+        int[] copies = new int[32];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = 1000 + i;
+        }
+        library.addTitle(1, "Dune", "Herbert", copies);
+        for (int i = 0; i < MEMBERS; i++) {
+            library.addMember(new Member(i, "Member " + i));
+        }
+        runDesks(seed -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int round = 0; round < ROUNDS / 5; round++) {
+                int member = random.nextInt(MEMBERS);
+                int copy = copies[random.nextInt(copies.length)];
+                switch (random.nextInt(4)) {
+                    case 0:
+                        library.borrowTitle(member, 1);
+                        library.cancelHold(member, 1);
+                        break;
+                    case 1:
+                        library.borrowBook(member, copy);
+                        break;
+                    default:
+                        for (int held : library.getBookIdsHeldBy(member)) {
+                            library.returnBook(member, held);
+                        }
+                }
+            }
+        });
+        Title title = library.findTitleById(1);
+        assertEquals(copies.length - library.borrowRecordCount(), title.availableCopies());
+        assertTrue(library.deleteBookById(copies[0]));
+        assertEquals(copies.length - 1 - library.borrowRecordCount(), title.availableCopies());
+        int lent = 0;
+        for (int i = 0; i < copies.length; i++) {
+            if (library.borrowTitle(MEMBERS - 1, 1) == Title.LENT) {
+                lent++;
+            }
+            library.cancelHold(MEMBERS - 1, 1);
+        }
+        assertEquals(0, title.availableCopies());
+        assertEquals(copies.length - 1, library.borrowRecordCount());
+        assertTrue(lent > 0);
+        for (int held : library.getBookIdsHeldBy(MEMBERS - 1)) {
+            assertNotEquals(copies[0], held);
+        }
+    }
+    @Test
+    void listenerAttachedDuringWritesSeesEveryBookOnce() throws Exception {
+        Library library = new Library();
+        for (int i = 0; i < BOOKS; i++) {
+            library.addBook(new Book(i, "Title " + i, "Author " + (i % 10)));
+        }
+        AtomicInteger net = new AtomicInteger();
+        LibraryListener counter = new LibraryListener() {
+            public void bookAdded(Book book) {
+                net.incrementAndGet();
+            }
+            public void bookDeleted(Book book) {
+                net.decrementAndGet();
+            }
+        };
+        runDesks(seed -> {
+            if (seed == 7) {
+                library.attachListener(counter);
+                return;
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            int base = (int) seed * 10000;
+            for (int round = 0; round < 2000; round++) {
+                int id = base + random.nextInt(500);
+                if (!library.deleteBookById(id)) {
+                    library.addBook(new Book(id, "Title " + id, "Author " + (id % 10)));
+                }
+            }
+        });
+        assertEquals(library.bookCount(), net.get());
+    }
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+    private interface Desk {
+        void run(long seed) throws Exception;
+    }
+    private static void runDesks(Desk desk) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            ArrayList<Future<?>> desks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long seed = 31L * t + 7;
+                desks.add(pool.submit(() -> {
+                    start.await();
+                    desk.run(seed);
+                    return null;
+                }));
+            }
+            for (Future<?> f : desks) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class LibraryExporterTest {
+    @TempDir
+    Path dir;
+    private static Library sample() {
+        Library library = new Library();
+        library.addBook(new Book(3, "Dune, \"Messiah\"", "Herbert"));
+        library.addBook(new Book(1, "Café\tnoir", "Zoë"));
+        library.addBook(new Book(2, " Leading", "Plain"));
+        library.addMember(new Member(7, "Ada"));
+        library.borrowBook(7, 2);
+        return library;
+    }
+    private String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+    @Test
+    void writesEscapedCsvAndNdjson() throws IOException {
+        LibrarySnapshot snapshot = sample().snapshot();
+        LibraryExporter exporter = new LibraryExporter(32);
+        Path csv = dir.resolve("books.csv");
+        assertEquals(3, exporter.exportBooks(snapshot, csv, true));
+        assertEquals("id,title,author\n1,Café\tnoir,Zoë\n2,\" Leading\",Plain\n3,\"Dune, \"\"Messiah\"\"\",Herbert\n", read(csv));
+        Path json = dir.resolve("books.ndjson");
+        assertEquals(3, exporter.exportBooks(snapshot, json, true));
+        assertEquals("{\"id\":1,\"title\":\"Café\\tnoir\",\"author\":\"Zoë\"}\n"
+            + "{\"id\":2,\"title\":\" Leading\",\"author\":\"Plain\"}\n"
+            + "{\"id\":3,\"title\":\"Dune, \\\"Messiah\\\"\",\"author\":\"Herbert\"}\n", read(json));
+        Path loans = dir.resolve("loans.csv");
+        assertEquals(1, exporter.exportBorrowRecords(snapshot, loans));
+        assertEquals("bookId,memberId\n2,7\n", read(loans));
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(dir, "*.tmp")) {
+            assertFalse(temps.iterator().hasNext());
+        }
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportBooks(snapshot, dir.resolve("books.txt"), false));
+    }
+    @Test
+    void writesBinaryRecords() throws IOException {
+        Path bin = dir.resolve("members.bin");
+        assertEquals(1, new LibraryExporter(64).exportMembers(sample().snapshot(), bin, false));
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(bin));
+        assertEquals(LibraryExporter.BINARY_MAGIC, in.getInt());
+        assertEquals(LibraryExporter.BINARY_VERSION, in.getInt());
+        assertEquals(LibraryExporter.MEMBERS, in.get());
+        assertEquals(1L, in.getLong());
+        assertEquals(7, in.getInt());
+        assertEquals(3, in.getInt());
+        byte[] name = new byte[3];
+        in.get(name);
+        assertEquals("Ada", new String(name, StandardCharsets.UTF_8));
+        assertFalse(in.hasRemaining());
+    }
+    @Test
+    void concurrentExportsDoNotShareBuffers() throws Exception {
+        Library library = new Library();
+        for (int i = 0; i < 5000; i++) {
+            library.addBook(new Book(i, "Title " + i, "Author " + (i % 13)));
+        }
+        LibrarySnapshot snapshot = library.snapshot();
+        LibraryExporter exporter = new LibraryExporter(256);
+        Path reference = dir.resolve("reference.csv");
+        exporter.exportBooks(snapshot, reference, true);
+        byte[] expected = Files.readAllBytes(reference);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<Path>> exports = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Path file = dir.resolve("books-" + t + ".csv");
+                exports.add(pool.submit(() -> {
+                    exporter.exportBooks(snapshot, file, true);
+                    return file;
+                }));
+            }
+            for (Future<Path> export : exports) {
+                assertArrayEquals(expected, Files.readAllBytes(export.get(1, TimeUnit.MINUTES)));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+class LibraryIndexesTest {
+    @Test
+    void authorsAndBorrowersRankByCountThenId() {
+        Library library = new Library();
+        for (int i = 0; i < 12; i++) {
+            library.addBook(new Book(i, "Title " + i, i < 6 ? "Le Guin" : i < 9 ? "Butler" : "Banks"));
+        }
+        for (int i = 1; i <= 4; i++) {
+            library.addMember(new Member(i, "Member " + i));
+        }
+        LibraryIndexes indexes = new LibraryIndexes(library.getDictionary());
+        library.attachListener(indexes);
+        library.addBook(new Book(12, "Title 12", "Banks"));
+        assertArrayEquals(new int[] {9, 10, 11, 12}, indexes.booksByAuthor("Banks"));
+        assertEquals(3, indexes.authorBookCount("Butler"));
+        assertEquals(0, indexes.authorBookCount("Nobody"));
+        assertTrue(library.deleteBookById(3));
+        List<String> authors = new ArrayList<>();
+        StringBuilder out = new StringBuilder();
+        indexes.streamTopAuthors(3, line -> out.append(line).append('\n'));
+        assertEquals("Top 3 Authors (Author -> Books):\nAuthor: Le Guin, Books: 5\nAuthor: Banks, Books: 4\nAuthor: Butler, Books: 3\n", out.toString());
+        assertTrue(library.borrowBook(4, 0));
+        assertTrue(library.borrowBook(4, 1));
+        assertTrue(library.borrowBook(2, 2));
+        assertTrue(library.borrowBook(3, 4));
+        assertTrue(library.borrowBook(1, 5));
+        assertTrue(library.returnBook(1, 5));
+        List<int[]> borrowers = new ArrayList<>();
+        indexes.topBorrowers(3, (memberId, loans) -> borrowers.add(new int[] {memberId, loans}));
+        assertEquals(3, borrowers.size());
+        assertArrayEquals(new int[] {4, 2}, borrowers.get(0));
+        assertArrayEquals(new int[] {2, 1}, borrowers.get(1));
+        assertArrayEquals(new int[] {3, 1}, borrowers.get(2));
+        assertEquals(0, indexes.loanCount(1));
+        assertTrue(library.deleteBookById(0));
+        assertTrue(library.removeMemberById(2));
+        assertEquals(1, indexes.loanCount(4));
+        assertEquals(0, indexes.loanCount(2));
+        for (int id : new int[] {1, 2, 4, 5}) {
+            assertTrue(library.deleteBookById(id));
+        }
+        assertArrayEquals(new int[0], indexes.booksByAuthor("Le Guin"));
+        indexes.topAuthors(5, (author, books) -> authors.add(library.getDictionary().get(author) + "=" + books));
+        assertEquals(List.of("Banks=4", "Butler=3"), authors);
+    }
+}
@@ -0,0 +1,49 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+class LibraryServiceTest {
+    @Test
+    void batchRepliesLineUpWithCommands() throws IOException {
+        Library library = new Library();
+        LibraryService service = new LibraryService(library, null);
+        String[] replies = service.executeLines(Arrays.asList(
+            "ADD_BOOK\t1\tDune\tHerbert",
+            "ADD_MEMBER 1 Ada",
+            "BORROW 1 1",
+            "BORROW 1 1",
+            "ADD_BOOK\t1\tAgain\tHerbert",
+            "FIND_BOOK 1",
+            "FIND_MEMBER 1",
+            "FIND_BOOK 2",
+            "NOPE",
+            "RETURN 1 1"));
+        assertArrayEquals(new String[] {
+            "OK", "OK", "OK", "NO", "ERR Book ID already exists.", "OK 1\tDune\tHerbert", "OK 1\tAda\t1", "NO",
+            "ERR Unknown command: NOPE", "OK"}, replies);
+    }
+    @Test
+    void journalFailureAnswersEveryCommand() throws IOException {
+        Library library = new Library();
+        library.addJournal(new LibraryListener() {
+            public void bookAdded(Book book) {
+                if (book.getId() == 13) {
+                    throw new UncheckedIOException(new IOException("disk full"));
+                }
+            }
+        });
+        LibraryService service = new LibraryService(library, null);
+        String[] replies = service.execute(new LibraryCommand[] {
+            LibraryCommand.addBook(12, "Before", "Author"),
+            LibraryCommand.addBook(13, "Failing", "Author"),
+            LibraryCommand.addBook(14, "After", "Author"),
+            LibraryCommand.findBook(13)});
+        assertEquals(4, replies.length);
+        assertEquals("OK", replies[0]);
+        assertTrue(replies[1].startsWith("ERR ") && replies[1].contains("disk full"));
+        assertEquals("OK", replies[2]);
+        assertEquals("NO", replies[3]);
+        assertNotNull(library.findBookById(14));
+    }
+}
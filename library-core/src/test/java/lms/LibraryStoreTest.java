@@ -0,0 +1,260 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class LibraryStoreTest {
+    @TempDir
+    Path dir;
+    private static void populate(Library library) {
+        library.setClock(() -> 1000L);
+        library.setLoanPeriod(500L);
+        for (int i = 0; i < 20; i++) {
+            library.addBook(new Book(i, "Title " + i, "Author " + (i % 3)));
+        }
+        library.addMember(new Member(1, "Ada"));
+        library.addMember(new Member(2, "Grace"));
+        library.addTitle(100, "Dune", "Herbert", new int[] {50, 51});
+        assertTrue(library.borrowBook(1, 3));
+        assertTrue(library.borrowBook(2, 4));
+        assertTrue(library.borrowBook(2, 50));
+        assertTrue(library.deleteBookById(7));
+        assertTrue(library.returnBook(2, 4));
+        assertEquals(1, library.renewLoans(new int[] {3}, 9000L));
+    }
+    private static void assertPopulated(Library library, int otherBooks) {
+        assertEquals(21 + otherBooks, library.bookCount());
+        assertNull(library.findBookById(7));
+        assertEquals("Title 5", library.findBookById(5).getTitle());
+        assertEquals("Grace", library.findMemberById(2).getMemberName());
+        assertArrayEquals(new int[] {3}, library.getBookIdsHeldBy(1));
+        assertArrayEquals(new int[] {50}, library.getBookIdsHeldBy(2));
+        assertEquals(2, library.borrowRecordCount());
+        long[] due = new long[1];
+        assertTrue(library.visitLoan(3, (bookId, memberId, checkoutMillis, dueMillis) -> due[0] = dueMillis));
+        assertEquals(9000L, due[0]);
+        Title title = library.findTitleById(100);
+        assertEquals("Dune", title.getTitle());
+        assertEquals(1, title.availableCopies());
+    }
+    @Test
+    void checkpointedStateSurvivesRestart() throws IOException {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        populate(library);
+        store.close();
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        try {
+            assertPopulated(restored, 0);
+        } finally {
+            reopened.close();
+        }
+    }
+    @Test
+    void restartMountsTheCatalogImageWithSharedCodes() throws IOException {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        populate(library);
+        store.checkpoint();
+        store.close();
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        try {
+            assertPopulated(restored, 0);
+            Book first = restored.findBookById(1);
+            Book second = restored.findBookById(4);
+            assertTrue(first instanceof MappedBook);
+            assertEquals(first.getAuthorCode(), second.getAuthorCode());
+            assertEquals(restored.getDictionary().codeOf("Author 1"), first.getAuthorCode());
+            assertEquals(first.getTitleCode(), restored.findBookById(1).getTitleCode());
+            assertEquals("Author 1", second.getAuthor());
+            assertEquals(0, restored.getAddedMemberHistory().nextSequence());
+        } finally {
+            reopened.close();
+        }
+    }
+    @Test
+    void mappedCodesAreInternedOnceAndReleasedOnClose() throws Exception {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        populate(library);
+        store.close();
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        StringDictionary dictionary = restored.getDictionary();
+        int membersAndTitles = dictionary.size();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                restored.forEachBook(book -> {
+                    book.getTitleCode();
+                    book.getAuthorCode();
+                });
+            });
+            readers[t].start();
+        }
+        start.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        int mapped = dictionary.size() - membersAndTitles;
+        assertTrue(restored.findBookById(1) instanceof MappedBook);
+        reopened.close();
+        assertFalse(restored.findBookById(1) instanceof MappedBook);
+        assertEquals(membersAndTitles + mapped, dictionary.size());
+        assertEquals("Title 5", restored.findBookById(5).getTitle());
+        for (int id : new int[] {0, 1, 2, 3, 4, 5, 6, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 50, 51}) {
+            assertTrue(restored.deleteBookById(id));
+        }
+        assertEquals(0, restored.bookCount());
+        assertEquals(membersAndTitles, dictionary.size());
+    }
+    @Test
+    void journalReplaysMutationsAfterTheLastCheckpoint() throws IOException {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        library.addBook(new Book(900, "Before", "Checkpoint"));
+        store.checkpoint();
+        populate(library);
+        store.sync();
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        try {
+            assertPopulated(restored, 1);
+            assertEquals("Before", restored.findBookById(900).getTitle());
+        } finally {
+            reopened.close();
+        }
+    }
+    @Test
+    void tornJournalTailIsDiscarded() throws IOException {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        library.addBook(new Book(1, "Kept", "Author"));
+        store.sync();
+        Path journal;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.bin")) {
+            journal = files.iterator().next();
+        }
+        Files.write(journal, new byte[] {LibraryJournal.ADD_BOOK, 0, 0}, StandardOpenOption.APPEND);
+        long intact = Files.size(journal) - 3;
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        try {
+            assertEquals(1, restored.bookCount());
+            assertEquals(intact, Files.size(journal));
+        } finally {
+            reopened.close();
+        }
+    }
+    @Test
+    void oversizedStringLengthEndsTheJournalWithoutRecordingHistory() throws IOException {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        library.addBook(new Book(1, "Kept", "Author"));
+        store.sync();
+        Path journal;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.bin")) {
+            journal = files.iterator().next();
+        }
+        long intact = Files.size(journal);
+        Files.write(journal, new byte[] {LibraryJournal.ADD_BOOK, 0, 0, 0, 2, 0x7F, -1, -1, -16, 'x'}, StandardOpenOption.APPEND);
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        try {
+            assertEquals(1, restored.bookCount());
+            assertEquals(intact, Files.size(journal));
+            assertEquals(0, restored.getAddedBookHistory().nextSequence());
+            restored.addBook(new Book(2, "Fresh", "Author"));
+            assertEquals(1, restored.getAddedBookHistory().nextSequence());
+        } finally {
+            reopened.close();
+        }
+    }
+    @Test
+    void deletingALentBookEndsTheLoan() throws IOException {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 0);
+        library.addMember(new Member(1, "Ada"));
+        library.addTitle(100, "Dune", "Herbert", new int[] {50, 51});
+        assertTrue(library.borrowBook(1, 50));
+        assertTrue(library.deleteBookById(50));
+        assertEquals(0, library.borrowRecordCount());
+        assertArrayEquals(new int[0], library.getBookIdsHeldBy(1));
+        assertEquals(0, library.findMemberById(1).borrowedCount());
+        assertFalse(library.visitLoan(50, (bookId, memberId, checkoutMillis, dueMillis) -> { }));
+        assertEquals(1, library.findTitleById(100).availableCopies());
+        store.sync();
+        Library restored = new Library();
+        LibraryStore reopened = new LibraryStore(dir);
+        reopened.attach(restored, 0);
+        try {
+            assertEquals(0, restored.borrowRecordCount());
+            assertEquals(0, restored.findMemberById(1).borrowedCount());
+            assertNull(restored.findBookById(50));
+        } finally {
+            reopened.close();
+        }
+    }
+    @Test
+    void failingJournalLeavesTheLibraryUnchanged() {
+        Library library = new Library();
+        library.addBook(new Book(1, "Lent", "Author"));
+        library.addMember(new Member(1, "Ada"));
+        library.addJournal(new LibraryListener() {
+            public void bookAdded(Book book) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+            public void bookBorrowed(int memberId, int bookId) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+            public void bookDeleted(Book book) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        });
+        assertThrows(UncheckedIOException.class, () -> library.addBook(new Book(2, "New", "Author")));
+        assertNull(library.findBookById(2));
+        assertThrows(UncheckedIOException.class, () -> library.borrowBook(1, 1));
+        assertEquals(0, library.borrowRecordCount());
+        assertEquals(0, library.findMemberById(1).borrowedCount());
+        assertThrows(UncheckedIOException.class, () -> library.deleteBookById(1));
+        assertNotNull(library.findBookById(1));
+    }
+    @Test
+    void scheduledCheckpointFailuresReachTheHandler() throws Exception {
+        Library library = new Library();
+        LibraryStore store = new LibraryStore(dir);
+        store.attach(library, 20);
+        CompletableFuture<Exception> failure = new CompletableFuture<>();
+        store.setCheckpointFailureHandler(failure::complete);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+        assertInstanceOf(IOException.class, failure.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,100 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+class LoanCalendarTest {
+    private static final long HOUR = 60L * 60 * 1000;
+    private static TreeMap<Integer, Long> overdue(LoanCalendar calendar, long asOfMillis) {
+        TreeMap<Integer, Long> due = new TreeMap<>();
+        int count = calendar.forEachOverdue(asOfMillis, (bookId, memberId, checkoutMillis, dueMillis) -> due.put(bookId, dueMillis));
+        assertEquals(due.size(), count);
+        assertEquals(count, calendar.forEachOverdue(asOfMillis, null));
+        return due;
+    }
+    @Test
+    void overdueQueriesSplitTheBoundaryBucket() {
+        LoanCalendar calendar = new LoanCalendar(4);
+        calendar.schedule(1, 10, 0, 5 * HOUR);
+        calendar.schedule(2, 10, 0, 5 * HOUR + 30 * 60 * 1000);
+        calendar.schedule(3, 11, 0, 6 * HOUR);
+        calendar.schedule(4, 11, 0, -2 * HOUR);
+        assertEquals(4, calendar.size());
+        assertEquals(Set.of(4), overdue(calendar, 0).keySet());
+        assertEquals(Set.of(4, 1), overdue(calendar, 5 * HOUR + 1).keySet());
+        assertEquals(Set.of(4, 1), overdue(calendar, 5 * HOUR + 30 * 60 * 1000).keySet());
+        assertEquals(Set.of(4, 1, 2), overdue(calendar, 6 * HOUR).keySet());
+        assertEquals(4, overdue(calendar, 100 * HOUR).size());
+        long[] renewed = new long[1];
+        assertTrue(calendar.renew(1, 50 * HOUR, (bookId, memberId, checkoutMillis, dueMillis) -> renewed[0] = dueMillis));
+        assertEquals(50 * HOUR, renewed[0]);
+        assertEquals(Set.of(4, 2, 3), overdue(calendar, 10 * HOUR).keySet());
+        calendar.schedule(2, 12, HOUR, 40 * HOUR);
+        assertEquals(4, calendar.size());
+        calendar.cancel(4);
+        calendar.cancel(4);
+        assertEquals(3, calendar.size());
+        assertEquals(Set.of(3), overdue(calendar, 10 * HOUR).keySet());
+        assertFalse(calendar.renew(4, HOUR, (bookId, memberId, checkoutMillis, dueMillis) -> fail()));
+        long[] visited = new long[4];
+        assertTrue(calendar.visit(2, (bookId, memberId, checkoutMillis, dueMillis) -> {
+            visited[0] = bookId;
+            visited[1] = memberId;
+            visited[2] = checkoutMillis;
+            visited[3] = dueMillis;
+        }));
+        assertArrayEquals(new long[] {2, 12, HOUR, 40 * HOUR}, visited);
+    }
+    @Test
+    void overdueMatchesAScanAfterRandomChanges() {
+        LoanCalendar calendar = new LoanCalendar(8);
+        HashMap<Integer, Long> due = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 20000; round++) {
+            int bookId = random.nextInt(2000);
+            long when = random.nextLong(-100 * HOUR, 400 * HOUR);
+            switch (random.nextInt(3)) {
+                case 0:
+                    calendar.schedule(bookId, bookId % 50, 0, when);
+                    due.put(bookId, when);
+                    break;
+                case 1:
+                    assertEquals(due.containsKey(bookId), calendar.renew(bookId, when, (b, m, c, d) -> { }));
+                    due.computeIfPresent(bookId, (k, v) -> when);
+                    break;
+                default:
+                    calendar.cancel(bookId);
+                    due.remove(bookId);
+            }
+        }
+        assertEquals(due.size(), calendar.size());
+        for (long asOf = -120 * HOUR; asOf < 420 * HOUR; asOf += 7 * HOUR + 12345) {
+            TreeMap<Integer, Long> expected = new TreeMap<>();
+            for (Map.Entry<Integer, Long> entry : due.entrySet()) {
+                if (entry.getValue() < asOf) {
+                    expected.put(entry.getKey(), entry.getValue());
+                }
+            }
+            assertEquals(expected, overdue(calendar, asOf));
+        }
+    }
+    @Test
+    void visitorsRunWithoutHoldingStripes() throws Exception {
+        LoanCalendar calendar = new LoanCalendar(1);
+        calendar.schedule(1, 10, 0, HOUR);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            int count = calendar.forEachOverdue(2 * HOUR, (bookId, memberId, checkoutMillis, dueMillis) -> {
+                try {
+                    other.submit(() -> calendar.schedule(2, 11, 0, 3 * HOUR)).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+            assertEquals(1, count);
+            assertEquals(2, calendar.size());
+        } finally {
+            other.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+class SearchIndexTest {
+    @Test
+    void postingListMatchesASortedSetUnderRandomInsertsAndRemovals() {
+        PostingList list = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        SplittableRandom random = new SplittableRandom(17);
+        for (int round = 0; round < 20000; round++) {
+            int id = random.nextInt(-5000, 5000);
+            if (random.nextInt(10) == 0) {
+                IntHashSet removed = new IntHashSet();
+                removed.add(id);
+                list.removeAll(removed);
+                expected.remove(id);
+            } else {
+                list.add(id);
+                expected.add(id);
+            }
+            if (round % 997 == 0) {
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), list.toArray());
+            }
+            int probe = random.nextInt(-5000, 5000);
+            assertEquals(expected.contains(probe), list.contains(probe));
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), list.toArray());
+    }
+    @Test
+    void searchIntersectsTermsAndSkipsDeletedBooks() {
+        SearchIndex index = new SearchIndex();
+        for (int i = 999; i >= 0; i--) {
+            index.bookAdded(new Book(i, (i % 2 == 0 ? "Even" : "Odd") + " Title " + i, "Author " + (i % 7)));
+        }
+        int expected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0 && i % 7 == 3) {
+                expected++;
+            }
+        }
+        int[] hits = index.search("even author 3 ", 1000);
+        assertEquals(expected, hits.length);
+        for (int id : hits) {
+            assertEquals(0, id % 2);
+            assertEquals(3, id % 7);
+        }
+        int terms = index.termCount();
+        index.bookDeleted(new Book(6, "Never Indexed Words", "Nobody"));
+        assertEquals(terms, index.termCount());
+        index.bookDeleted(new Book(10, "Even Title 10", "Author 3"));
+        hits = index.search("even author 3 ", 1000);
+        assertEquals(expected - 1, hits.length);
+        assertTrue(Arrays.binarySearch(hits, 10) < 0);
+    }
+    @Test
+    void deletedTermsLeaveThePrefixBudget() {
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < 300; i++) {
+            index.bookAdded(new Book(i, String.format("Alpha%03d", i), "Shared"));
+        }
+        int before = index.termCount();
+        for (int i = 0; i < 290; i++) {
+            index.bookDeleted(new Book(i, String.format("Alpha%03d", i), "Shared"));
+        }
+        assertEquals(before - 290, index.termCount());
+        index.bookAdded(new Book(1000, "Alphaomega", "Shared"));
+        int[] hits = index.search("alph", 1000);
+        assertEquals(11, hits.length);
+        assertEquals(1000, hits[hits.length - 1]);
+        index.bookAdded(new Book(5, "Alpha005", "Shared"));
+        assertArrayEquals(new int[] {5}, index.search("alpha005", 10));
+        assertEquals(12, index.search("shared", 1000).length);
+    }
+}
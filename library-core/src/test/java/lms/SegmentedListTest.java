@@ -0,0 +1,39 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+class SegmentedListTest {
+    @Test
+    void removeFindsItemsAcrossMergedSegmentsAndKeepsOrder() {
+        SegmentedList<Member> list = new SegmentedList<>(Member::getMemberId);
+        Member[] members = new Member[5000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Member(i, "Member " + i);
+            list.add(members[i]);
+        }
+        SegmentedList.View<Member> before = list.snapshot();
+        for (int i = 0; i < members.length; i++) {
+            if (i % 5 != 0) {
+                assertTrue(list.remove(members[i]));
+            }
+        }
+        assertFalse(list.remove(members[1]));
+        assertFalse(list.remove(new Member(0, "Impostor")));
+        assertEquals(1000, list.size());
+        int expected = 0;
+        for (Member member : list) {
+            assertEquals(expected, member.getMemberId());
+            expected += 5;
+        }
+        for (int i = 0; i < members.length; i += 10) {
+            assertTrue(list.remove(members[i]));
+        }
+        assertEquals(500, list.size());
+        assertEquals(5000, before.size());
+        assertEquals(4999, before.get(4999).getMemberId());
+        ArrayList<Integer> ids = new ArrayList<>();
+        list.forEach(member -> ids.add(member.getMemberId()));
+        assertEquals(5, (int) ids.get(0));
+        assertEquals(4995, (int) ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,142 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class ShardedLibraryTest {
+    @TempDir
+    Path dir;
+    private static void populate(ShardedLibrary library, int books, int members) {
+        ArrayList<CompletableFuture<Void>> added = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            added.add(library.addBook(new Book(i, "Title " + i, "Author " + (i % 3))));
+        }
+        for (int i = 0; i < members; i++) {
+            added.add(library.addMember(new Member(1000 + i, "Member " + i)));
+        }
+        CompletableFuture.allOf(added.toArray(new CompletableFuture<?>[0])).join();
+    }
+    @Test
+    void concurrentCrossShardBorrowsHaveExactlyOneWinnerPerBook() throws Exception {
+        try (ShardedLibrary library = new ShardedLibrary(4)) {
+            populate(library, 200, 8);
+            ArrayList<CompletableFuture<Boolean>> attempts = new ArrayList<>();
+            for (int bookId = 0; bookId < 200; bookId++) {
+                for (int m = 0; m < 8; m++) {
+                    attempts.add(library.borrowBook(1000 + m, bookId));
+                }
+            }
+            int won = 0;
+            for (CompletableFuture<Boolean> attempt : attempts) {
+                if (attempt.get()) {
+                    won++;
+                }
+            }
+            assertEquals(200, won);
+            assertEquals(200, library.borrowRecordCount());
+            int held = 0;
+            for (int m = 0; m < 8; m++) {
+                held += library.getBookIdsHeldBy(1000 + m).length;
+            }
+            assertEquals(200, held);
+            assertFalse(library.borrowBook(999, 0).get());
+            assertFalse(library.borrowBook(1000, 500).get());
+        }
+    }
+    @Test
+    void mergedListingsAreSortedAcrossShards() throws Exception {
+        try (ShardedLibrary library = new ShardedLibrary(3)) {
+            populate(library, 50, 5);
+            for (int bookId = 49; bookId >= 0; bookId -= 7) {
+                assertTrue(library.borrowBook(1000 + bookId % 5, bookId).get());
+            }
+            String[] books = library.displaySortedBooks().split("\n");
+            assertEquals("Sorted Books List:", books[0]);
+            assertEquals(51, books.length);
+            for (int i = 0; i < 50; i++) {
+                assertEquals(new Book(i, "Title " + i, "Author " + (i % 3)).toString(), books[i + 1]);
+            }
+            assertEquals("ID: 1004, Name: Member 4", library.displaySortedMembers().split("\n")[5]);
+            int[] last = {Integer.MIN_VALUE, Integer.MIN_VALUE};
+            library.forEachBorrowRecord((bookId, memberId) -> {
+                assertTrue(bookId > last[0]);
+                last[0] = bookId;
+            });
+            last[0] = Integer.MIN_VALUE;
+            int[] count = new int[1];
+            library.forEachReturnRecord((memberId, bookId) -> {
+                assertTrue(memberId > last[0] || (memberId == last[0] && bookId > last[1]));
+                last[0] = memberId;
+                last[1] = bookId;
+                count[0]++;
+            });
+            assertEquals(8, count[0]);
+            assertEquals(50, library.bookCount());
+            assertEquals(5, library.memberCount());
+        }
+    }
+    @Test
+    void removingAMemberEndsLoansHeldInOtherShards() throws Exception {
+        try (ShardedLibrary library = new ShardedLibrary(4)) {
+            populate(library, 40, 2);
+            for (int bookId = 0; bookId < 40; bookId++) {
+                assertTrue(library.borrowBook(1000 + bookId % 2, bookId).get());
+            }
+            assertTrue(library.removeMemberById(1000).get());
+            assertFalse(library.removeMemberById(1000).get());
+            assertArrayEquals(new int[0], library.getBookIdsHeldBy(1000));
+            assertEquals(20, library.borrowRecordCount());
+            assertNull(library.findMemberById(1000).get());
+            assertTrue(library.borrowBook(1001, 0).get());
+            assertFalse(library.borrowBook(1000, 2).get());
+        }
+    }
+    @Test
+    void rangePartitioningRoutesByIdBlock() {
+        try (ShardedLibrary library = new ShardedLibrary(4, ShardedLibrary.BY_RANGE, 100)) {
+            assertEquals(0, library.shardOf(-5));
+            assertEquals(1, library.shardOf(150));
+            assertEquals(3, library.shardOf(10000));
+        } catch (IOException e) {
+            fail(e);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ShardedLibrary(4, ShardedLibrary.BY_RANGE, 0));
+    }
+    @Test
+    void failuresCompleteTheFutureAndClosedLibrariesRejectWork() throws Exception {
+        ShardedLibrary library = new ShardedLibrary(2);
+        library.addBook(new Book(1, "Dune", "Herbert")).get();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> library.addBook(new Book(1, "Emma", "Austen")).get());
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        library.close();
+        assertThrows(IllegalStateException.class, () -> library.findBookById(1));
+    }
+    @Test
+    void crossShardLoansSurviveARestart() throws Exception {
+        try (ShardedLibrary library = new ShardedLibrary(3)) {
+            library.attach(dir, 0);
+            populate(library, 30, 3);
+            for (int bookId = 0; bookId < 30; bookId += 2) {
+                assertTrue(library.borrowBook(1000 + bookId % 3, bookId).get());
+            }
+            assertTrue(library.returnBook(1000, 0).get());
+            assertTrue(library.removeMemberById(1001).get());
+            library.sync();
+        }
+        try (ShardedLibrary restored = new ShardedLibrary(3)) {
+            restored.attach(dir, 0);
+            assertEquals(30, restored.bookCount());
+            assertEquals(2, restored.memberCount());
+            assertArrayEquals(new int[] {6, 12, 18, 24}, restored.getBookIdsHeldBy(1000));
+            assertArrayEquals(new int[0], restored.getBookIdsHeldBy(1001));
+            assertArrayEquals(new int[] {2, 8, 14, 20, 26}, restored.getBookIdsHeldBy(1002));
+            assertEquals("Title 7", restored.findBookById(7).get().getTitle());
+        }
+        try (ShardedLibrary resized = new ShardedLibrary(2)) {
+            assertThrows(IOException.class, () -> resized.attach(dir, 0));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package lms;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.Test;
+class StringDictionaryTest {
+    @Test
+    void releasedCodesAreReusedAndCompactionKeepsLiveStrings() {
+        StringDictionary dictionary = new StringDictionary();
+        int[] codes = new int[2000];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = dictionary.intern("Title " + i + (i % 7 == 0 ? " été 书" : ""));
+        }
+        assertEquals(codes[5], dictionary.intern("Title 5"));
+        assertEquals(2000, dictionary.size());
+        dictionary.release(codes[5]);
+        assertEquals("Title 5", dictionary.get(codes[5]));
+        for (int i = 0; i < codes.length; i += 2) {
+            dictionary.release(codes[i]);
+        }
+        assertEquals(1000, dictionary.size());
+        assertEquals(StringDictionary.NULL, dictionary.codeOf("Title 4"));
+        assertTrue(dictionary.deadBytes() > 0);
+        long stored = dictionary.storedBytes();
+        dictionary.compact();
+        assertEquals(0, dictionary.deadBytes());
+        assertEquals(stored, dictionary.storedBytes());
+        for (int i = 1; i < codes.length; i += 2) {
+            assertEquals("Title " + i + (i % 7 == 0 ? " été 书" : ""), dictionary.get(codes[i]));
+            assertEquals(codes[i], dictionary.codeOf(dictionary.get(codes[i])));
+        }
+        int reused = dictionary.intern("Fresh");
+        assertEquals(0, reused % 2);
+        assertEquals("Fresh", dictionary.get(reused));
+        assertEquals(1001, dictionary.size());
+    }
+    @Test
+    void overReleaseIsRejected() {
+        StringDictionary dictionary = new StringDictionary();
+        int code = dictionary.intern("Once");
+        dictionary.release(code);
+        assertThrows(IllegalStateException.class, () -> dictionary.release(code));
+    }
+    @Test
+    void reusedCodesNeverDecodeToTheirPreviousString() {
+        StringDictionary dictionary = new StringDictionary();
+        int code = dictionary.intern("Old");
+        int generation = dictionary.generation(code);
+        assertEquals("Old", dictionary.get(code));
+        dictionary.release(code);
+        assertEquals(code, dictionary.intern("New"));
+        assertEquals("New", dictionary.get(code));
+        assertNull(dictionary.get(code, generation));
+        assertEquals("New", dictionary.get(code, dictionary.generation(code)));
+    }
+    @Test
+    void readersRacingFreeAndReuseSeeTheirStringOrNothing() throws Exception {
+        StringDictionary dictionary = new StringDictionary();
+        dictionary.intern("Pinned");
+        AtomicReference<Object[]> held = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> mismatch = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while (!done.get()) {
+                    Object[] entry = held.get();
+                    if (entry == null) {
+                        continue;
+                    }
+                    String value = dictionary.get((Integer) entry[0], (Integer) entry[1]);
+                    if (value != null && !value.equals(entry[2])) {
+                        mismatch.set(entry[2] + " decoded as " + value);
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (int i = 0; i < 200000; i++) {
+            String value = (i % 3 == 0 ? "Ünïcode " : "Name ") + i;
+            int code = dictionary.intern(value);
+            held.set(new Object[] {code, dictionary.generation(code), value});
+            assertEquals(value, dictionary.get(code));
+            dictionary.release(code);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(mismatch.get());
+        assertEquals(1, dictionary.size());
+    }
+    @Test
+    void librariesOwnTheirStringsAndDeletesReleaseThemImmediately() {
+        Library first = new Library();
+        Library second = new Library();
+        Book book = new Book(1, "Shared Title", "Shared Author");
+        first.addBook(book);
+        second.addBook(new Book(1, "Shared Title", "Shared Author"));
+        assertNotSame(first.getDictionary(), second.getDictionary());
+        assertEquals("Book ID already exists.", assertThrows(IllegalArgumentException.class, () -> second.addBook(book)).getMessage());
+        assertEquals("Book 1 already belongs to another library.", assertThrows(IllegalArgumentException.class, () -> new Library().addBook(book)).getMessage());
+        first.addMember(new Member(1, "Ada"));
+        assertEquals(3, first.getDictionary().size());
+        assertTrue(first.deleteBookById(1));
+        assertTrue(first.removeMemberById(1));
+        assertEquals(0, first.getDictionary().size());
+        assertEquals(2, second.getDictionary().size());
+        assertEquals("Shared Title", book.getTitle());
+        assertEquals(StringDictionary.NULL, book.getAuthorCode());
+        first.addBook(new Book(2, "Reused", "Codes"));
+        assertEquals("Shared Author", book.getAuthor());
+        assertEquals("Reused", first.findBookById(2).getTitle());
+    }
+}
@@ -0,0 +1,79 @@
+package lms;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.*;
+public class LibraryConsole {
+    public static void main(String[] args) throws IOException {
+        Path storeDir = null;
+        int port = -1;
+        int batch = 1024;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--store":
+                    storeDir = Paths.get(value);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (batch < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        Library library = new Library();
+        LibraryStore store = null;
+        if (storeDir != null) {
+            store = new LibraryStore(storeDir);
+            System.err.println(store.attach(library, 10 * 60 * 1000));
+            store.setCheckpointFailureHandler(e -> System.err.println("Checkpoint failed: " + e));
+        }
+        LibraryService service = new LibraryService(library, store);
+        try {
+            if (port < 0) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+                service.serve(in, out, batch);
+            } else {
+                listen(service, port, batch);
+            }
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+    private static void listen(LibraryService service, int port, int batch) throws IOException {
+        ExecutorService workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "library-console-client");
+            t.setDaemon(true);
+            return t;
+        });
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("Listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket client = server.accept();
+                workers.execute(() -> {
+                    try (Socket socket = client) {
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+                        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+                        service.serve(in, out, batch);
+                    } catch (IOException e) {
+                        System.err.println("Client " + client.getRemoteSocketAddress() + " failed: " + e.getMessage());
+                    }
+                });
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
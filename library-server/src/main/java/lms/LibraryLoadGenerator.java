@@ -0,0 +1,193 @@
+package lms;
+import java.io.*;
+import java.net.*;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+public class LibraryLoadGenerator {
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = 7410;
+        int connections = 32;
+        int idle = 0;
+        int pipeline = 32;
+        int seconds = 10;
+        int books = 100000;
+        int members = 1000;
+        boolean seed = true;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--host":
+                    host = value;
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(value);
+                    break;
+                case "--idle":
+                    idle = Integer.parseInt(value);
+                    break;
+                case "--pipeline":
+                    pipeline = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "--books":
+                    books = Integer.parseInt(value);
+                    break;
+                case "--members":
+                    members = Integer.parseInt(value);
+                    break;
+                case "--no-seed":
+                    seed = false;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (connections < 1 || pipeline < 1 || seconds < 1 || books < connections || members < 1) {
+            throw new IllegalArgumentException("Connections, pipeline, seconds and members must be positive and books at least the connection count.");
+        }
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (seed) {
+            seed(address, books, members);
+        }
+        ArrayList<SocketChannel> idleChannels = new ArrayList<>(idle);
+        for (int i = 0; i < idle; i++) {
+            idleChannels.add(SocketChannel.open(address));
+        }
+        if (idle > 0) {
+            System.out.println("Holding " + idle + " idle connections");
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(connections);
+        ArrayList<Future<long[]>> results = new ArrayList<>();
+        LongAdder ok = new LongAdder();
+        LongAdder refused = new LongAdder();
+        LongAdder errors = new LongAdder();
+        for (int c = 0; c < connections; c++) {
+            int client = c;
+            int total = connections;
+            int bookCount = books;
+            int memberCount = members;
+            int depth = pipeline;
+            results.add(workers.submit(() -> drive(address, client, total, bookCount, memberCount, depth, deadline, ok, refused, errors)));
+        }
+        long[] all = new long[0];
+        int size = 0;
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            int n = (int) latencies[0];
+            if (size + n > all.length) {
+                all = Arrays.copyOf(all, Math.max(all.length * 2, size + n));
+            }
+            System.arraycopy(latencies, 1, all, size, n);
+            size += n;
+        }
+        workers.shutdown();
+        for (SocketChannel channel : idleChannels) {
+            channel.close();
+        }
+        Arrays.sort(all, 0, size);
+        long requests = ok.sum() + refused.sum() + errors.sum();
+        System.out.printf("requests=%d ok=%d no=%d err=%d throughput=%.0f req/s%n",
+            requests, ok.sum(), refused.sum(), errors.sum(), requests / (double) seconds);
+        if (size > 0) {
+            System.out.printf("batch round trip us: p50=%d p90=%d p99=%d p999=%d max=%d%n",
+                percentile(all, size, 0.50), percentile(all, size, 0.90), percentile(all, size, 0.99),
+                percentile(all, size, 0.999), all[size - 1]);
+        }
+    }
+    private static long percentile(long[] sorted, int size, double p) {
+        return sorted[Math.min(size - 1, (int) (p * size))];
+    }
+    private static void seed(InetSocketAddress address, int books, int members) throws IOException {
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            int total = members + books;
+            for (int start = 0; start < total; start += 4096) {
+                int end = Math.min(total, start + 4096);
+                for (int i = start; i < end; i++) {
+                    if (i < members) {
+                        out.write("ADD_MEMBER " + i + " Member " + i + "\n");
+                    } else {
+                        int id = i - members;
+                        out.write("ADD_BOOK\t" + id + "\tTitle " + id + "\tAuthor " + (id % 1000) + "\n");
+                    }
+                }
+                out.flush();
+                for (int i = start; i < end; i++) {
+                    if (in.readLine() == null) {
+                        throw new EOFException("Server closed the connection while seeding.");
+                    }
+                }
+            }
+        }
+        System.out.println("Seeded " + members + " members and " + books + " books");
+    }
+    private static long[] drive(InetSocketAddress address, int client, int clients, int books, int members, int pipeline,
+            long deadline, LongAdder ok, LongAdder refused, LongAdder errors) throws IOException {
+        long[] latencies = new long[1024];
+        int count = 0;
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            int member = client % members;
+            int slots = books / clients;
+            StringBuilder batch = new StringBuilder(pipeline * 24);
+            long sequence = 0;
+            while (System.nanoTime() < deadline) {
+                batch.setLength(0);
+                for (int i = 0; i < pipeline; i++, sequence++) {
+                    int book = client + (int) ((sequence >> 2) % slots) * clients;
+                    switch ((int) (sequence & 3)) {
+                        case 0:
+                            batch.append("BORROW ").append(member).append(' ').append(book).append('\n');
+                            break;
+                        case 1:
+                            batch.append("FIND_BOOK ").append(book).append('\n');
+                            break;
+                        case 2:
+                            batch.append("RETURN ").append(member).append(' ').append(book).append('\n');
+                            break;
+                        default:
+                            batch.append("FIND_MEMBER ").append(member).append('\n');
+                            break;
+                    }
+                }
+                long start = System.nanoTime();
+                out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                for (int i = 0; i < pipeline; i++) {
+                    String line = in.readLine();
+                    if (line == null) {
+                        throw new EOFException("Server closed the connection.");
+                    }
+                    if (line.startsWith("OK")) {
+                        ok.increment();
+                    } else if (line.startsWith("NO")) {
+                        refused.increment();
+                    } else {
+                        errors.increment();
+                    }
+                }
+                if (count + 1 >= latencies.length) {
+                    latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                }
+                latencies[++count] = (System.nanoTime() - start) / 1000;
+            }
+        }
+        latencies[0] = count;
+        return latencies;
+    }
+}
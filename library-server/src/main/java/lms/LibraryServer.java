@@ -0,0 +1,447 @@
+package lms;
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+public class LibraryServer implements Closeable {
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private final LibraryService service;
+    private final ServerSocketChannel server;
+    private final Selector acceptSelector;
+    private final EventLoop[] loops;
+    private final ExecutorService workers;
+    private final ThreadLocal<ResponseBuffer> responses = ThreadLocal.withInitial(() -> new ResponseBuffer(64 * 1024));
+    private final Thread acceptor;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean closed;
+    public LibraryServer(LibraryService service, InetSocketAddress address, int loopCount) throws IOException {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("Loop count must be positive.");
+        }
+        this.service = service;
+        this.server = ServerSocketChannel.open();
+        this.server.bind(address, 4096);
+        this.server.configureBlocking(false);
+        this.acceptSelector = Selector.open();
+        this.server.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(loopCount, r -> new Thread(r, "library-server-worker-" + workerCount.getAndIncrement()));
+        this.acceptor = new Thread(this::acceptLoop, "library-server-accept");
+    }
+    public InetSocketAddress address() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+    public void start() {
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+        acceptor.start();
+    }
+    public int connectionCount() {
+        int total = 0;
+        for (EventLoop loop : loops) {
+            total += loop.selector.keys().size();
+        }
+        return total;
+    }
+    private void acceptLoop() {
+        int next = 0;
+        while (!closed) {
+            try {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    loops[next].adopt(channel);
+                    next = (next + 1) % loops.length;
+                }
+            } catch (ClosedSelectorException | ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        acceptSelector.close();
+        server.close();
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+            acceptor.join();
+            for (EventLoop loop : loops) {
+                loop.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            terminated.countDown();
+        }
+    }
+    public void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+    private static final class Connection {
+        final SocketChannel channel;
+        ArrayList<String> lines = new ArrayList<>();
+        byte[] partial;
+        int partialLength;
+        ByteBuffer unsent;
+        boolean closing;
+        boolean failed;
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final ConcurrentLinkedQueue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<SelectionKey> completed = new ConcurrentLinkedQueue<>();
+        final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "library-server-loop-" + index);
+        }
+        void adopt(SocketChannel channel) {
+            incoming.add(channel);
+            selector.wakeup();
+        }
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = incoming.poll()) != null) {
+                        try {
+                            channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                        } catch (ClosedChannelException e) {
+                        }
+                    }
+                    SelectionKey done;
+                    while ((done = completed.poll()) != null) {
+                        Connection connection = (Connection) done.attachment();
+                        try {
+                            finish(done, connection);
+                        } catch (IOException | RuntimeException e) {
+                            disconnect(done, connection);
+                        }
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isWritable()) {
+                                drain(key, connection);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                read(key, connection);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            disconnect(key, connection);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Event loop failed: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    try {
+                        key.channel().close();
+                    } catch (IOException e) {
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        private void read(SelectionKey key, Connection connection) throws IOException {
+            while (true) {
+                readBuffer.clear();
+                int n = connection.channel.read(readBuffer);
+                if (n < 0) {
+                    connection.closing = true;
+                    if (!connection.lines.isEmpty()) {
+                        dispatch(key, connection);
+                    } else if (connection.unsent == null) {
+                        disconnect(key, connection);
+                    }
+                    return;
+                }
+                readBuffer.flip();
+                splitLines(connection);
+                boolean drained = n < readBuffer.capacity();
+                if (connection.lines.size() >= MAX_BATCH || (drained && !connection.lines.isEmpty())) {
+                    dispatch(key, connection);
+                    return;
+                }
+                if (drained) {
+                    return;
+                }
+            }
+        }
+        private void dispatch(SelectionKey key, Connection connection) {
+            List<String> batch = connection.lines;
+            connection.lines = new ArrayList<>();
+            key.interestOps(0);
+            workers.execute(() -> {
+                ResponseBuffer out = responses.get();
+                out.clear();
+                try {
+                    service.executeLines(batch, out);
+                    ByteBuffer reply = out.flip();
+                    connection.unsent = ByteBuffer.allocate(reply.remaining()).put(reply);
+                    connection.unsent.flip();
+                } catch (IOException | RuntimeException e) {
+                    connection.failed = true;
+                }
+                completed.add(key);
+                selector.wakeup();
+            });
+        }
+        private void finish(SelectionKey key, Connection connection) throws IOException {
+            if (connection.failed || !key.isValid()) {
+                disconnect(key, connection);
+                return;
+            }
+            key.interestOps(SelectionKey.OP_WRITE);
+            drain(key, connection);
+        }
+        private void splitLines(Connection connection) {
+            while (readBuffer.hasRemaining()) {
+                int start = readBuffer.position();
+                int end = start;
+                int limit = readBuffer.limit();
+                while (end < limit && readBuffer.get(end) != '\n') {
+                    end++;
+                }
+                int length = end - start;
+                if (end == limit) {
+                    appendPartial(connection, length);
+                    return;
+                }
+                String line;
+                if (connection.partialLength == 0) {
+                    byte[] bytes = new byte[length];
+                    readBuffer.get(bytes);
+                    line = decode(bytes, length);
+                } else {
+                    appendPartial(connection, length);
+                    line = decode(connection.partial, connection.partialLength);
+                    connection.partialLength = 0;
+                    connection.partial = null;
+                }
+                readBuffer.get();
+                if (!line.trim().isEmpty()) {
+                    connection.lines.add(line);
+                }
+            }
+        }
+        private void appendPartial(Connection connection, int length) {
+            int needed = connection.partialLength + length;
+            if (needed > MAX_LINE_BYTES) {
+                throw new IllegalArgumentException("Line exceeds " + MAX_LINE_BYTES + " bytes.");
+            }
+            if (connection.partial == null || connection.partial.length < needed) {
+                byte[] grown = new byte[Math.max(needed, Math.min(MAX_LINE_BYTES, Math.max(256, needed * 2)))];
+                if (connection.partialLength > 0) {
+                    System.arraycopy(connection.partial, 0, grown, 0, connection.partialLength);
+                }
+                connection.partial = grown;
+            }
+            readBuffer.get(connection.partial, connection.partialLength, length);
+            connection.partialLength = needed;
+        }
+        private String decode(byte[] bytes, int length) {
+            if (length > 0 && bytes[length - 1] == '\r') {
+                length--;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        private void drain(SelectionKey key, Connection connection) throws IOException {
+            connection.channel.write(connection.unsent);
+            if (!connection.unsent.hasRemaining()) {
+                connection.unsent = null;
+                if (connection.closing) {
+                    disconnect(key, connection);
+                } else {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            }
+        }
+        private void disconnect(SelectionKey key, Connection connection) {
+            connection.lines.clear();
+            key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+    static final class ResponseBuffer implements CommandReplies {
+        private static final byte[] OK = "OK".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] NO = "NO\n".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] HELD = "HELD\n".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] ERR = "ERR ".getBytes(StandardCharsets.US_ASCII);
+        private final byte[] digits = new byte[11];
+        private ByteBuffer buffer;
+        ResponseBuffer(int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+        void clear() {
+            buffer.clear();
+        }
+        ByteBuffer flip() {
+            buffer.flip();
+            return buffer;
+        }
+        public void ok() {
+            reserve(3).put(OK).put((byte) '\n');
+        }
+        public void refused() {
+            reserve(3).put(NO);
+        }
+        public void held() {
+            reserve(5).put(HELD);
+        }
+        public void error(String message) {
+            reserve(4).put(ERR);
+            text(message != null ? message : "Command failed.");
+            reserve(1).put((byte) '\n');
+        }
+        public void book(Book book) {
+            reserve(15).put(OK).put((byte) ' ');
+            number(book.getId());
+            reserve(1).put((byte) '\t');
+            text(book.getTitle());
+            reserve(1).put((byte) '\t');
+            text(book.getAuthor());
+            reserve(1).put((byte) '\n');
+        }
+        public void member(Member member) {
+            reserve(15).put(OK).put((byte) ' ');
+            number(member.getMemberId());
+            reserve(1).put((byte) '\t');
+            text(member.getMemberName());
+            reserve(1).put((byte) '\t');
+            number(member.borrowedCount());
+            reserve(1).put((byte) '\n');
+        }
+        private void number(int value) {
+            long v = value;
+            ByteBuffer b = reserve(11);
+            if (v < 0) {
+                b.put((byte) '-');
+                v = -v;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            while (n > 0) {
+                b.put(digits[--n]);
+            }
+        }
+        private void text(String value) {
+            int length = value.length();
+            ByteBuffer b = reserve(length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    b.position(b.position() - i);
+                    byte[] encoded = value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ').getBytes(StandardCharsets.UTF_8);
+                    reserve(encoded.length).put(encoded);
+                    return;
+                }
+                b.put(c == '\t' || c == '\n' || c == '\r' ? (byte) ' ' : (byte) c);
+            }
+        }
+        private ByteBuffer reserve(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path storeDir = null;
+        String host = "127.0.0.1";
+        int port = 7410;
+        int loopCount = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--store":
+                    storeDir = Paths.get(value);
+                    break;
+                case "--host":
+                    host = value;
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--loops":
+                    loopCount = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        Library library = new Library();
+        LibraryStore store = null;
+        if (storeDir != null) {
+            store = new LibraryStore(storeDir);
+            System.err.println(store.attach(library, 10 * 60 * 1000));
+            store.setCheckpointFailureHandler(e -> System.err.println("Checkpoint failed: " + e));
+        }
+        LibraryServer server = new LibraryServer(new LibraryService(library, store), new InetSocketAddress(host, port), loopCount);
+        LibraryStore attached = store;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                if (attached != null) {
+                    attached.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Shutdown failed: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.err.println("Listening on " + server.address() + " with " + loopCount + " event loops");
+        server.awaitTermination();
+    }
+}